@@ -0,0 +1,91 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import com.zebra.rfid.api3.InvalidUsageException;
+import com.zebra.rfid.api3.OperationFailureException;
+import com.zebra.rfid.api3.RFIDReader;
+
+
+/**
+ * {@link ReaderPort} over a connected API3 reader, so the handler starts and stops an inventory
+ * the same way on real and simulated readers.
+ * <p>
+ * Only connection and inventory control go through the port. The reader's events keep arriving
+ * through the handler's API3 listener, which pulls the reads into ingestion and forwards status
+ * events to the handler's {@link ReaderPort.Listener} itself; {@link #setListener} is therefore
+ * not used.
+ */
+class Api3ReaderPort implements ReaderPort {
+    private static final String TAG = "Api3ReaderPort";
+
+    private final RFIDReader reader;
+
+    /**
+     * @param reader The API3 reader.
+     */
+    Api3ReaderPort(RFIDReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return The wrapped reader.
+     */
+    RFIDReader reader() {
+        return reader;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+    }
+
+    @Override
+    public boolean connect() {
+        try {
+            if (!reader.isConnected()) reader.connect();
+            return reader.isConnected();
+        } catch (InvalidUsageException | OperationFailureException e) {
+            Log.e(TAG, "Error connecting " + reader.getHostName(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        try {
+            reader.disconnect();
+        } catch (InvalidUsageException | OperationFailureException e) {
+            Log.e(TAG, "Error disconnecting " + reader.getHostName(), e);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return reader.isConnected();
+    }
+
+    @Override
+    public String getHostName() {
+        return reader.getHostName();
+    }
+
+    @Override
+    public void startInventory() {
+        if (!reader.isConnected()) return;
+        try {
+            reader.Actions.Inventory.perform();
+        } catch (InvalidUsageException | OperationFailureException e) {
+            Log.e(TAG, "Error performing inventory", e);
+        }
+    }
+
+    @Override
+    public void stopInventory() {
+        if (!reader.isConnected()) return;
+        try {
+            reader.Actions.Inventory.stop();
+        } catch (InvalidUsageException | OperationFailureException e) {
+            Log.e(TAG, "Error stopping inventory", e);
+        }
+    }
+}
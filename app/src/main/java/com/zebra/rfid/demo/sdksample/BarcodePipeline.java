@@ -0,0 +1,240 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import com.zebra.barcode.sdk.BarcodeDataEventArgs;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Decodes, de-duplicates and batches scans from the scanner SDK before they reach consumers.
+ * <p>
+ * The scanner reports raw bytes and a symbology code. Two-dimensional symbologies carry UTF-8
+ * as often as not and are decoded strictly as UTF-8, falling back to ISO-8859-1 for bytes that
+ * are not valid UTF-8; linear symbologies are single-byte and decoded as ISO-8859-1. The
+ * decoders are created once and reused.
+ * <p>
+ * In continuous scanning the same label is reported many times a second. A scan whose text and
+ * symbology match one of the last {@link #RECENT_SCANS} scans within {@link #REPEAT_WINDOW_MS} is
+ * counted and dropped.
+ * <p>
+ * Each consumer has its own executor and receives the scans that arrived since its last batch
+ * in one call, so a burst of scans costs one UI post rather than one per scan. Consumers that
+ * render scans report it through {@link #markDelivered}, which feeds the decode-to-UI histogram.
+ */
+class BarcodePipeline {
+    private static final String TAG = "BarcodePipeline";
+    static final int RECENT_SCANS = 16;
+    private static final long REPEAT_WINDOW_MS = 1000;
+
+    /**
+     * One decoded scan.
+     */
+    static class Scan {
+        final String text;
+        /** Symbology, or null for a code the SDK does not list. */
+        final BarcodeDataEventArgs.BarcodeType symbology;
+        /** {@link System#nanoTime()} when the scan was decoded. */
+        final long decodedNanos;
+
+        Scan(String text, BarcodeDataEventArgs.BarcodeType symbology, long decodedNanos) {
+            this.text = text;
+            this.symbology = symbology;
+            this.decodedNanos = decodedNanos;
+        }
+
+        /**
+         * @return Symbology name for display.
+         */
+        String symbologyName() {
+            return symbology != null ? symbology.name() : "UNKNOWN";
+        }
+    }
+
+    /**
+     * Receives scans in arrival order.
+     */
+    interface Consumer {
+        void onScans(ArrayList<Scan> scans);
+    }
+
+    private static final BarcodeDataEventArgs.BarcodeType[] SYMBOLOGIES;
+
+    static {
+        int max = 0;
+        for (BarcodeDataEventArgs.BarcodeType type : BarcodeDataEventArgs.BarcodeType.values()) {
+            max = Math.max(max, type.value);
+        }
+        SYMBOLOGIES = new BarcodeDataEventArgs.BarcodeType[max + 1];
+        for (BarcodeDataEventArgs.BarcodeType type : BarcodeDataEventArgs.BarcodeType.values()) {
+            if (type.value >= 0 && SYMBOLOGIES[type.value] == null) SYMBOLOGIES[type.value] = type;
+        }
+    }
+
+    /**
+     * A consumer with its executor and the scans it has not received yet.
+     */
+    private static class Subscription {
+        final Executor executor;
+        final Consumer consumer;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        ArrayList<Scan> pending = new ArrayList<>();
+
+        Subscription(Executor executor, Consumer consumer) {
+            this.executor = executor;
+            this.consumer = consumer;
+        }
+    }
+
+    private final ArrayList<Subscription> subscriptions = new ArrayList<>();
+    private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final CharsetDecoder latin1 = StandardCharsets.ISO_8859_1.newDecoder();
+    private CharBuffer chars = CharBuffer.allocate(256);
+    private final LinkedHashMap<String, Long> recent = new LinkedHashMap<String, Long>(RECENT_SCANS + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > RECENT_SCANS;
+        }
+    };
+    private final long repeatWindowNanos = TimeUnit.MILLISECONDS.toNanos(REPEAT_WINDOW_MS);
+    private final LatencyHistogram decodeToUi = new LatencyHistogram("barcode decode->ui");
+
+    private long scans;
+    private long suppressed;
+    private long batches;
+    private long utf8Fallbacks;
+
+    /**
+     * Adds a consumer. Register consumers before the first scan arrives.
+     * @param executor Runs the consumer's batches, e.g. a UI handler's {@code post}.
+     * @param consumer The consumer.
+     */
+    synchronized void addConsumer(Executor executor, Consumer consumer) {
+        subscriptions.add(new Subscription(executor, consumer));
+    }
+
+    /**
+     * Decodes a scan from the scanner SDK callback and queues it for the consumers.
+     * @param data Raw barcode bytes.
+     * @param typeCode Symbology code from the scanner.
+     */
+    void onBarcode(byte[] data, int typeCode) {
+        long now = System.nanoTime();
+        BarcodeDataEventArgs.BarcodeType symbology = typeCode >= 0 && typeCode < SYMBOLOGIES.length ? SYMBOLOGIES[typeCode] : null;
+        Scan scan;
+        synchronized (this) {
+            scans++;
+            String text = decode(data, symbology);
+            String key = typeCode + ":" + text;
+            Long last = recent.put(key, now);
+            if (last != null && now - last < repeatWindowNanos) {
+                suppressed++;
+                return;
+            }
+            scan = new Scan(text, symbology, now);
+            for (Subscription subscription : subscriptions) {
+                subscription.pending.add(scan);
+            }
+        }
+        for (Subscription subscription : subscriptions) {
+            if (subscription.scheduled.compareAndSet(false, true)) {
+                subscription.executor.execute(() -> deliver(subscription));
+            }
+        }
+        Log.d(TAG, "Barcode scanned: " + scan.text + " (" + scan.symbologyName() + ")");
+    }
+
+    /**
+     * Records that a scan is now visible to the user.
+     * @param scan The scan.
+     */
+    void markDelivered(Scan scan) {
+        decodeToUi.recordNanos(System.nanoTime() - scan.decodedNanos);
+    }
+
+    /**
+     * @return Scan, repeat and batch counters and the decode-to-UI latency.
+     */
+    synchronized String describe() {
+        return String.format(Locale.US, "barcodes: %d scans, %d repeats dropped, %d batches, %d non-UTF-8 2D codes\n  %s",
+                scans, suppressed, batches, utf8Fallbacks, decodeToUi.describe());
+    }
+
+    private void deliver(Subscription subscription) {
+        ArrayList<Scan> batch;
+        synchronized (this) {
+            subscription.scheduled.set(false);
+            if (subscription.pending.isEmpty()) return;
+            batch = subscription.pending;
+            subscription.pending = new ArrayList<>();
+            batches++;
+        }
+        subscription.consumer.onScans(batch);
+    }
+
+    /**
+     * Must hold the lock; the decoders and char buffer are shared.
+     */
+    private String decode(byte[] data, BarcodeDataEventArgs.BarcodeType symbology) {
+        if (chars.capacity() < data.length) chars = CharBuffer.allocate(data.length);
+        if (isTwoDimensional(symbology)) {
+            if (decodeInto(utf8, data)) return chars.toString();
+            utf8Fallbacks++;
+        }
+        decodeInto(latin1, data);
+        return chars.toString();
+    }
+
+    private boolean decodeInto(CharsetDecoder decoder, byte[] data) {
+        decoder.reset();
+        chars.clear();
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data);
+            if (decoder.decode(in, chars, true).isError() || decoder.flush(chars).isError()) return false;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+        chars.flip();
+        return true;
+    }
+
+    private static boolean isTwoDimensional(BarcodeDataEventArgs.BarcodeType symbology) {
+        if (symbology == null) return false;
+        switch (symbology) {
+            case PDF_417:
+            case MICRO_PDF:
+            case MACRO_PDF_417:
+            case MICRO_PDF_CCA:
+            case MACRO_MICRO_PDF:
+            case DATA_MATRIX:
+            case GS1DATAMATRIX:
+            case QR_CODE:
+            case MACRO_QR_CODE:
+            case MICRO_QR_CODE:
+            case GS1_QR:
+            case AZTEC_CODE:
+            case AZTEC_RUNE_CODE:
+            case MAXICODE:
+            case HAN_XIN:
+            case DOT_CODE:
+            case GRID_MATRIX:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Binds each barcode scan to the tags read around it, e.g. a carton label to the items inside.
+ * <p>
+ * Tag reads and scans are stamped with {@link System#nanoTime()} on arrival and kept in two
+ * fixed rings of primitive columns, oldest overwritten first; a read stores only the reference
+ * to the EPC string the SDK already created, so recording allocates nothing. Because both rings
+ * are in time order, the reads of a scan's window are found by binary search. Once the window
+ * after a scan has closed, the scan is resolved to up to {@code maxTags} distinct EPCs, picked by
+ * peak RSSI ({@link Mode#STRONGEST}) or by distance in time from the scan ({@link Mode#NEAREST}),
+ * and handed to the listener.
+ * <p>
+ * Reads are stamped when they reach the tag consumer, so the queue delay between the reader and
+ * the consumer counts against the window; keep the window a few tens of milliseconds wider than
+ * the queue delay shown in the pipeline stats. Thread-safe.
+ */
+class BarcodeTagAssociator {
+    private static final int TAG_RING = 8192;
+    private static final int SCAN_RING = 64;
+
+    /**
+     * How the tags of a window are ranked.
+     */
+    enum Mode { STRONGEST, NEAREST }
+
+    /**
+     * A scan and the tags bound to it, best first.
+     */
+    static class Association {
+        final String barcode;
+        final String[] epcs;
+        final short[] rssi;
+        /** Read time relative to the scan; negative if the tag was read before it. */
+        final long[] offsetMs;
+
+        Association(String barcode, String[] epcs, short[] rssi, long[] offsetMs) {
+            this.barcode = barcode;
+            this.epcs = epcs;
+            this.rssi = rssi;
+            this.offsetMs = offsetMs;
+        }
+    }
+
+    /**
+     * Receives resolved scans.
+     */
+    interface Listener {
+        void onAssociation(Association association);
+    }
+
+    private final Listener listener;
+    private volatile boolean enabled;
+    private Mode mode = Mode.STRONGEST;
+    private long beforeNanos = TimeUnit.MILLISECONDS.toNanos(500);
+    private long afterNanos = TimeUnit.MILLISECONDS.toNanos(500);
+    private int maxTags = 8;
+
+    private final String[] tagEpcs = new String[TAG_RING];
+    private final long[] tagNanos = new long[TAG_RING];
+    private final short[] tagRssi = new short[TAG_RING];
+    private long tagCount;
+
+    private final String[] scanCodes = new String[SCAN_RING];
+    private final long[] scanNanos = new long[SCAN_RING];
+    private long scanCount;
+    private long resolvedCount;
+
+    private String[] bestEpcs = new String[maxTags];
+    private short[] bestRssi = new short[maxTags];
+    private long[] bestDelta = new long[maxTags];
+
+    private long associations;
+    private long emptyScans;
+    private long boundTags;
+    private long overrunScans;
+
+    /**
+     * @param listener Receives resolved scans on the thread that resolves them.
+     */
+    BarcodeTagAssociator(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the window and ranking.
+     * @param mode Ranking of the tags in the window.
+     * @param beforeMs Reads this long before the scan still count.
+     * @param afterMs Reads this long after the scan still count; the scan resolves after it.
+     * @param maxTags Most tags bound to one scan.
+     */
+    synchronized void configure(Mode mode, long beforeMs, long afterMs, int maxTags) {
+        this.mode = mode;
+        this.beforeNanos = TimeUnit.MILLISECONDS.toNanos(beforeMs);
+        this.afterNanos = TimeUnit.MILLISECONDS.toNanos(afterMs);
+        this.maxTags = maxTags;
+        bestEpcs = new String[maxTags];
+        bestRssi = new short[maxTags];
+        bestDelta = new long[maxTags];
+    }
+
+    /**
+     * @return Milliseconds after a scan until it can be resolved.
+     */
+    synchronized long getAfterMs() {
+        return TimeUnit.NANOSECONDS.toMillis(afterNanos);
+    }
+
+    /**
+     * Turns recording on or off; turning it off drops unresolved scans.
+     * @param on True to record reads and scans.
+     */
+    synchronized void setEnabled(boolean on) {
+        enabled = on;
+        if (!on) resolvedCount = scanCount;
+    }
+
+    /**
+     * @return True while reads and scans are recorded.
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a batch of reads from the tag consumer and resolves scans whose window closed.
+     * @param batch Reads from the tag queue.
+     */
+    void onTags(TagData[] batch) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        synchronized (this) {
+            for (TagData tag : batch) {
+                if (tag == null || tag.getTagID() == null) continue;
+                int i = (int) (tagCount++ % TAG_RING);
+                tagEpcs[i] = tag.getTagID();
+                tagNanos[i] = now;
+                tagRssi[i] = tag.getPeakRSSI();
+            }
+        }
+        resolveDue();
+    }
+
+    /**
+     * Records a barcode scan.
+     * @param barcode Decoded barcode.
+     * @param decodedNanos {@link System#nanoTime()} when the scan was decoded.
+     */
+    synchronized void onBarcode(String barcode, long decodedNanos) {
+        if (!enabled) return;
+        if (scanCount - resolvedCount == SCAN_RING) {
+            resolvedCount++;
+            overrunScans++;
+        }
+        int i = (int) (scanCount++ % SCAN_RING);
+        scanCodes[i] = barcode;
+        scanNanos[i] = decodedNanos;
+    }
+
+    /**
+     * Resolves every scan whose window has closed. Called after each tag batch and, for scans with
+     * no reads after them, by a timer once the window has passed.
+     */
+    void resolveDue() {
+        while (true) {
+            Association association;
+            synchronized (this) {
+                if (resolvedCount == scanCount) return;
+                int i = (int) (resolvedCount % SCAN_RING);
+                if (System.nanoTime() - scanNanos[i] < afterNanos) return;
+                association = resolve(scanCodes[i], scanNanos[i]);
+                resolvedCount++;
+            }
+            listener.onAssociation(association);
+        }
+    }
+
+    /**
+     * @return Scans resolved, how many found tags, and the average tags per scan.
+     */
+    synchronized String describe() {
+        return String.format(Locale.US, "association (%s, -%d/+%d ms, max %d): %d scans bound, %d without tags, %.1f tags/scan, %d overrun, %d reads buffered",
+                mode, TimeUnit.NANOSECONDS.toMillis(beforeNanos), TimeUnit.NANOSECONDS.toMillis(afterNanos), maxTags,
+                associations, emptyScans, associations > 0 ? (double) boundTags / associations : 0, overrunScans,
+                Math.min(tagCount, TAG_RING));
+    }
+
+    /**
+     * Ranks the distinct EPCs read within the window of one scan. Must hold the lock.
+     */
+    private Association resolve(String barcode, long scanTime) {
+        long from = scanTime - beforeNanos;
+        long to = scanTime + afterNanos;
+        int found = 0;
+        for (long seq = firstReadAtOrAfter(from); seq < tagCount; seq++) {
+            int i = (int) (seq % TAG_RING);
+            long t = tagNanos[i];
+            if (t > to) break;
+            long delta = t - scanTime;
+            String epc = tagEpcs[i];
+            short rssi = tagRssi[i];
+            int slot = -1;
+            for (int k = 0; k < found; k++) {
+                if (bestEpcs[k].equals(epc)) {
+                    slot = k;
+                    break;
+                }
+            }
+            if (slot >= 0) {
+                // Keep the best read of an EPC already ranked.
+                if (!better(rssi, delta, bestRssi[slot], bestDelta[slot])) continue;
+            } else if (found < maxTags) {
+                slot = found++;
+            } else {
+                slot = worst(found);
+                if (!better(rssi, delta, bestRssi[slot], bestDelta[slot])) continue;
+            }
+            bestEpcs[slot] = epc;
+            bestRssi[slot] = rssi;
+            bestDelta[slot] = delta;
+        }
+        sortBest(found);
+        String[] epcs = Arrays.copyOf(bestEpcs, found);
+        short[] rssi = Arrays.copyOf(bestRssi, found);
+        long[] offsetMs = new long[found];
+        for (int k = 0; k < found; k++) {
+            offsetMs[k] = TimeUnit.NANOSECONDS.toMillis(bestDelta[k]);
+        }
+        Arrays.fill(bestEpcs, null);
+        associations++;
+        boundTags += found;
+        if (found == 0) emptyScans++;
+        return new Association(barcode, epcs, rssi, offsetMs);
+    }
+
+    private long firstReadAtOrAfter(long time) {
+        long lo = Math.max(0, tagCount - TAG_RING);
+        long hi = tagCount;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (tagNanos[(int) (mid % TAG_RING)] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private boolean better(short rssi, long delta, short otherRssi, long otherDelta) {
+        if (mode == Mode.STRONGEST) return rssi > otherRssi || (rssi == otherRssi && Math.abs(delta) < Math.abs(otherDelta));
+        return Math.abs(delta) < Math.abs(otherDelta);
+    }
+
+    private int worst(int found) {
+        int worst = 0;
+        for (int k = 1; k < found; k++) {
+            if (better(bestRssi[worst], bestDelta[worst], bestRssi[k], bestDelta[k])) worst = k;
+        }
+        return worst;
+    }
+
+    private void sortBest(int found) {
+        for (int i = 1; i < found; i++) {
+            for (int j = i; j > 0 && better(bestRssi[j], bestDelta[j], bestRssi[j - 1], bestDelta[j - 1]); j--) {
+                String epc = bestEpcs[j];
+                bestEpcs[j] = bestEpcs[j - 1];
+                bestEpcs[j - 1] = epc;
+                short rssi = bestRssi[j];
+                bestRssi[j] = bestRssi[j - 1];
+                bestRssi[j - 1] = rssi;
+                long delta = bestDelta[j];
+                bestDelta[j] = bestDelta[j - 1];
+                bestDelta[j - 1] = delta;
+            }
+        }
+    }
+}
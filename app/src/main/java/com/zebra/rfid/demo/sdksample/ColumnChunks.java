@@ -0,0 +1,77 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+
+/**
+ * Per-tag columns stored in fixed-size blocks of native memory outside the Java heap.
+ * <p>
+ * Each chunk holds {@link #ROWS} rows of a fixed width; a table lays its columns out one after
+ * another inside the chunk, so every value sits at a naturally aligned offset. Growing adds a
+ * chunk and never copies or discards the existing ones, so the Java heap holds only the chunk
+ * references (one per {@link #ROWS} rows) however many tags a session sees, and the garbage
+ * collector never scans or moves the column data. Chunks are kept until the owner is collected;
+ * a cleared table reuses them. Not thread-safe.
+ */
+final class ColumnChunks {
+    static final int SHIFT = 12;
+    /** Rows per chunk. */
+    static final int ROWS = 1 << SHIFT;
+    private static final int MASK = ROWS - 1;
+
+    private final int rowBytes;
+    private ByteBuffer[] chunks = new ByteBuffer[4];
+    private int count;
+
+    /**
+     * @param rowBytes Total width of all columns of one row.
+     * @param rows Rows to allocate up front.
+     */
+    ColumnChunks(int rowBytes, int rows) {
+        this.rowBytes = rowBytes;
+        ensureRows(rows);
+    }
+
+    /**
+     * Adds chunks until the given number of rows fits.
+     * @param rows Rows needed.
+     */
+    void ensureRows(int rows) {
+        while ((long) count * ROWS < rows) {
+            if (count == chunks.length) chunks = Arrays.copyOf(chunks, count * 2);
+            chunks[count++] = ByteBuffer.allocateDirect(ROWS * rowBytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * @param row Row index.
+     * @return The chunk holding the row.
+     */
+    ByteBuffer chunk(int row) {
+        return chunks[row >>> SHIFT];
+    }
+
+    /**
+     * @param row Row index.
+     * @return Position of the row within its chunk.
+     */
+    static int slot(int row) {
+        return row & MASK;
+    }
+
+    /**
+     * @return Rows that fit without adding a chunk.
+     */
+    int capacity() {
+        return count * ROWS;
+    }
+
+    /**
+     * @return Native memory held by the chunks in bytes.
+     */
+    long bytes() {
+        return (long) count * ROWS * rowBytes;
+    }
+}
@@ -0,0 +1,129 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+
+/**
+ * Phase-by-phase timing of reader connection attempts, kept for the last {@link #HISTORY}
+ * attempts in a fixed ring.
+ * <p>
+ * An attempt starts with {@link #begin(String)} and collects one duration per {@link Phase}.
+ * Phases may be recorded after {@link #finish(boolean)}, e.g. by work that completes in the
+ * background; they land in the most recent attempt. The report shows the last attempt next to
+ * the median and maximum of each phase across the history, and flags phases that took more than
+ * twice their median, so a connect that creeps from one second to six points at the step that
+ * regressed.
+ */
+class ConnectionTimeline {
+    /** Number of attempts kept. */
+    static final int HISTORY = 20;
+    private static final long NOT_RUN = -1;
+
+    /**
+     * Steps of the connect sequence, in order.
+     */
+    enum Phase {
+        DISCOVERY("discovery"),
+        REENUMERATION("re-enumeration"),
+        TRANSPORT_CONNECT("connect"),
+        EVENT_SUBSCRIPTION("events"),
+        EPC_FILTER("epc filter"),
+        SCANNER_SDK_INIT("scanner init"),
+        SCANNER_SESSION("scanner session"),
+        TRIGGER_RESTORE("trigger restore");
+
+        final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long[][] phaseMs = new long[HISTORY][PHASES.length];
+    private final String[] paths = new String[HISTORY];
+    private final long[] totalMs = new long[HISTORY];
+    private final boolean[] connected = new boolean[HISTORY];
+    private int current = -1;
+    private int count;
+    private long attemptStartMs;
+    private boolean open;
+
+    /**
+     * Starts a new attempt. An attempt still open is closed as failed.
+     * @param path Label for how the reader is reached, e.g. "fast" or "discovery".
+     */
+    synchronized void begin(String path) {
+        if (open) finish(false);
+        current = (current + 1) % HISTORY;
+        if (count < HISTORY) count++;
+        Arrays.fill(phaseMs[current], NOT_RUN);
+        paths[current] = path;
+        totalMs[current] = NOT_RUN;
+        connected[current] = false;
+        attemptStartMs = System.currentTimeMillis();
+        open = true;
+    }
+
+    /**
+     * Starts an attempt unless one is already open.
+     * @param path Label used if a new attempt is started.
+     */
+    synchronized void beginIfIdle(String path) {
+        if (!open) begin(path);
+    }
+
+    /**
+     * Records one phase of the most recent attempt.
+     * @param phase The phase.
+     * @param startMs Phase start from {@link System#currentTimeMillis()}.
+     */
+    synchronized void record(Phase phase, long startMs) {
+        if (current < 0) return;
+        phaseMs[current][phase.ordinal()] = System.currentTimeMillis() - startMs;
+    }
+
+    /**
+     * Closes the open attempt.
+     * @param success True if the reader ended up connected.
+     * @return Total duration of the attempt in milliseconds, or -1 if none was open.
+     */
+    synchronized long finish(boolean success) {
+        if (!open) return NOT_RUN;
+        open = false;
+        totalMs[current] = System.currentTimeMillis() - attemptStartMs;
+        connected[current] = success;
+        return totalMs[current];
+    }
+
+    /**
+     * @return The last attempt per phase, plus median and maximum per phase over the history.
+     */
+    synchronized String describe() {
+        if (current < 0) return "connect: no attempts";
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "connect (%s, %s): %d ms", paths[current],
+                open ? "in progress" : connected[current] ? "ok" : "failed", totalMs[current]));
+        long[] samples = new long[count];
+        for (Phase phase : PHASES) {
+            long last = phaseMs[current][phase.ordinal()];
+            int n = 0;
+            long max = 0;
+            for (int i = 0; i < count; i++) {
+                long value = phaseMs[i][phase.ordinal()];
+                if (value == NOT_RUN) continue;
+                samples[n++] = value;
+                max = Math.max(max, value);
+            }
+            if (n == 0) continue;
+            Arrays.sort(samples, 0, n);
+            long median = samples[n / 2];
+            sb.append(String.format(Locale.US, "\n  %s: %s ms (median %d, max %d, n=%d)%s", phase.label,
+                    last == NOT_RUN ? "-" : Long.toString(last), median, max, n,
+                    n > 1 && last > 2 * median && last > 50 ? " SLOW" : ""));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,267 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.Antennas;
+import com.zebra.rfid.api3.FILTER_ACTION;
+import com.zebra.rfid.api3.InvalidUsageException;
+import com.zebra.rfid.api3.MEMORY_BANK;
+import com.zebra.rfid.api3.OperationFailureException;
+import com.zebra.rfid.api3.PreFilters;
+import com.zebra.rfid.api3.RFIDReader;
+import com.zebra.rfid.api3.SL_FLAG;
+import com.zebra.rfid.api3.STATE_AWARE_ACTION;
+import com.zebra.rfid.api3.TARGET;
+import com.zebra.rfid.api3.TagData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * EPC prefix filter applied on the reader as Gen2 pre-filters and on the host as a compiled trie.
+ * <p>
+ * A filter is a comma-separated list of hex prefixes, each optionally followed by a bit length
+ * for prefixes that do not end on a nibble, e.g. {@code "3034257BF4, 30340A/22"}. A tag passes if
+ * its EPC starts with any of them; an empty list passes everything.
+ * <p>
+ * On the reader, the prefixes become Select commands on the EPC bank that assert the SL flag of
+ * matching tags, and the inventory only singulates tags with SL asserted, so other tags never
+ * cross the link. The Selects and the SL flag are set on every antenna the reader reports.
+ * Readers accept a limited number of pre-filters per antenna; a filter with more prefixes is
+ * applied on the host only.
+ * <p>
+ * On the host, the prefixes are compiled into a nibble trie whose accepting slots cover every
+ * completion of a prefix, so a match is one table lookup per EPC character up to the longest
+ * prefix, without allocation. {@link #apply} runs it on every batch before dedup, both as the
+ * fallback and to drop stray reads that get past the reader's Select.
+ */
+class EpcFilter {
+    /** Pre-filters pushed to the reader at most; more prefixes are matched on the host only. */
+    static final int MAX_READER_PREFILTERS = 4;
+    /** EPC bank bit offset of the EPC, after the CRC and PC words. */
+    private static final int EPC_BIT_OFFSET = 32;
+    private static final int ACCEPT = -1;
+    private static final int NONE = 0;
+
+    private final String spec;
+    private final String[] patterns;
+    private final int[] bitCounts;
+    private final int[] trie;
+    private volatile boolean onReader;
+    private final AtomicLong seen = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+
+    private EpcFilter(String spec, String[] patterns, int[] bitCounts, int[] trie) {
+        this.spec = spec;
+        this.patterns = patterns;
+        this.bitCounts = bitCounts;
+        this.trie = trie;
+    }
+
+    /**
+     * Parses and compiles a filter.
+     * @param spec Comma-separated hex prefixes, each with an optional {@code /bits} suffix.
+     * @return The compiled filter.
+     * @throws IllegalArgumentException If a prefix is not hex or its bit length does not fit it.
+     */
+    static EpcFilter compile(String spec) {
+        String normalized = spec == null ? "" : spec.trim();
+        ArrayList<String> patterns = new ArrayList<>();
+        ArrayList<Integer> bitCounts = new ArrayList<>();
+        for (String part : normalized.split("[,\\s]+")) {
+            if (part.isEmpty()) continue;
+            int slash = part.indexOf('/');
+            String hex = (slash < 0 ? part : part.substring(0, slash)).toUpperCase(Locale.US);
+            int bits = hex.length() * 4;
+            if (slash >= 0) {
+                try {
+                    bits = Integer.parseInt(part.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Bad bit length in " + part);
+                }
+            }
+            if (bits <= 0 || bits > hex.length() * 4 || bits <= (hex.length() - 1) * 4) {
+                throw new IllegalArgumentException("Bit length of " + part + " must fall in its last hex digit");
+            }
+            for (int i = 0; i < hex.length(); i++) {
+                if (Character.digit(hex.charAt(i), 16) < 0) throw new IllegalArgumentException("Not hex: " + part);
+            }
+            patterns.add(hex);
+            bitCounts.add(bits);
+        }
+        int[] bits = new int[bitCounts.size()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = bitCounts.get(i);
+        }
+        String[] hex = patterns.toArray(new String[0]);
+        return new EpcFilter(String.join(",", describePatterns(hex, bits)), hex, bits, buildTrie(hex, bits));
+    }
+
+    /**
+     * @return The filter in its normalized text form; empty if it passes everything.
+     */
+    String getSpec() {
+        return spec;
+    }
+
+    /**
+     * @return True if the filter passes every tag.
+     */
+    boolean isEmpty() {
+        return patterns.length == 0;
+    }
+
+    /**
+     * @param epc EPC in hex.
+     * @return True if the EPC starts with one of the prefixes.
+     */
+    boolean matches(String epc) {
+        if (patterns.length == 0) return true;
+        int node = 0;
+        for (int i = 0, n = epc.length(); i < n; i++) {
+            int nibble = Character.digit(epc.charAt(i), 16);
+            if (nibble < 0) return false;
+            int next = trie[node * 16 + nibble];
+            if (next == ACCEPT) return true;
+            if (next == NONE) return false;
+            node = next;
+        }
+        return false;
+    }
+
+    /**
+     * Drops the reads that do not match and counts the hit ratio. Called on each reader's
+     * ingestion thread, possibly concurrently.
+     * @param batch Reads from the tag queue; reordered in place.
+     * @return The matching reads, the batch itself if all matched, or null if none did.
+     */
+    TagData[] apply(TagData[] batch) {
+        if (patterns.length == 0) return batch;
+        int kept = 0;
+        for (int i = 0; i < batch.length; i++) {
+            TagData tag = batch[i];
+            if (tag != null && tag.getTagID() != null && matches(tag.getTagID())) {
+                batch[i] = batch[kept];
+                batch[kept++] = tag;
+            }
+        }
+        seen.addAndGet(batch.length);
+        passed.addAndGet(kept);
+        if (kept == batch.length) return batch;
+        return kept == 0 ? null : Arrays.copyOf(batch, kept);
+    }
+
+    /**
+     * Replaces the reader's pre-filters with this filter, or clears them if it is empty or has
+     * more prefixes than the reader takes. An empty filter on a reader that has no pre-filters
+     * and singulates all tags on every antenna costs only the singulation reads. Call only while
+     * no inventory is running.
+     * @param reader Connected reader.
+     * @return True if the filter now runs on the reader.
+     * @throws InvalidUsageException If the SDK rejects a parameter.
+     * @throws OperationFailureException If the reader rejects the operation.
+     */
+    boolean applyToReader(RFIDReader reader) throws InvalidUsageException, OperationFailureException {
+        int antennas = Math.max(1, reader.ReaderCapabilities.getNumAntennaSupported());
+        boolean push = patterns.length > 0 && patterns.length <= MAX_READER_PREFILTERS;
+        if (!push && holdsDefaults(reader, antennas)) {
+            onReader = false;
+            return false;
+        }
+        reader.Actions.PreFilters.deleteAll();
+        for (short antenna = 1; push && antenna <= antennas; antenna++) {
+            for (int i = 0; i < patterns.length; i++) {
+                PreFilters.PreFilter filter = reader.Actions.PreFilters.new PreFilter();
+                filter.setAntennaID(antenna);
+                filter.setMemoryBank(MEMORY_BANK.MEMORY_BANK_EPC);
+                filter.setBitOffset(EPC_BIT_OFFSET);
+                filter.setTagPattern(patterns[i].length() % 2 == 0 ? patterns[i] : patterns[i] + "0");
+                filter.setTagPatternBitCount(bitCounts[i]);
+                filter.setFilterAction(FILTER_ACTION.FILTER_ACTION_STATE_AWARE);
+                filter.StateAwareAction.setTarget(TARGET.TARGET_SL);
+                // The first Select also deasserts every other tag; later ones only add their matches.
+                filter.StateAwareAction.setStateAwareAction(i == 0
+                        ? STATE_AWARE_ACTION.STATE_AWARE_ACTION_ASRT_SL_NOT_DSRT_SL
+                        : STATE_AWARE_ACTION.STATE_AWARE_ACTION_ASRT_SL);
+                reader.Actions.PreFilters.add(filter);
+            }
+        }
+        for (short antenna = 1; antenna <= antennas; antenna++) {
+            Antennas.SingulationControl singulationControl = reader.Config.Antennas.getSingulationControl(antenna);
+            singulationControl.Action.setSLFlag(push ? SL_FLAG.SL_FLAG_ASSERTED : SL_FLAG.SL_ALL);
+            reader.Config.Antennas.setSingulationControl(antenna, singulationControl);
+        }
+        onReader = push;
+        return push;
+    }
+
+    /**
+     * Marks the filter as no longer running on the reader, e.g. after the reader's singulation
+     * was reset behind its back.
+     */
+    void markOffReader() {
+        onReader = false;
+    }
+
+    /**
+     * @return True if the reader has no pre-filters and singulates all tags on every antenna.
+     */
+    private static boolean holdsDefaults(RFIDReader reader, int antennas) throws InvalidUsageException, OperationFailureException {
+        if (reader.Actions.PreFilters.length() > 0) return false;
+        for (short antenna = 1; antenna <= antennas; antenna++) {
+            if (reader.Config.Antennas.getSingulationControl(antenna).Action.getSLFlag() != SL_FLAG.SL_ALL) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Where the filter runs and its host-side hit ratio.
+     */
+    String describe() {
+        if (patterns.length == 0) return "epc filter: off";
+        long total = seen.get();
+        long hits = passed.get();
+        return String.format(Locale.US, "epc filter [%s] on %s: %d/%d reads passed on host (%.1f%%)",
+                spec, onReader ? "reader+host" : "host", hits, total, total > 0 ? hits * 100.0 / total : 100.0);
+    }
+
+    private static String[] describePatterns(String[] hex, int[] bits) {
+        String[] out = new String[hex.length];
+        for (int i = 0; i < hex.length; i++) {
+            out[i] = bits[i] == hex[i].length() * 4 ? hex[i] : hex[i] + "/" + bits[i];
+        }
+        return out;
+    }
+
+    /**
+     * Builds the nibble trie: node {@code n} owns slots {@code [n*16, n*16+16)}, each holding a
+     * child node, {@link #ACCEPT} or {@link #NONE}. Node 0 is the root, so no child is ever 0.
+     */
+    private static int[] buildTrie(String[] patterns, int[] bitCounts) {
+        int[] trie = new int[16];
+        int nodes = 1;
+        for (int p = 0; p < patterns.length; p++) {
+            String hex = patterns[p];
+            int node = 0;
+            int last = hex.length() - 1;
+            for (int i = 0; i < last && node != ACCEPT; i++) {
+                int slot = node * 16 + Character.digit(hex.charAt(i), 16);
+                if (trie[slot] == NONE) {
+                    if ((nodes + 1) * 16 > trie.length) trie = Arrays.copyOf(trie, trie.length * 2);
+                    trie[slot] = nodes++;
+                }
+                node = trie[slot];
+            }
+            if (node == ACCEPT) continue;
+            // The last digit may be partial: accept every nibble whose leading bits match.
+            int partialBits = bitCounts[p] - last * 4;
+            int mask = (0xF << (4 - partialBits)) & 0xF;
+            int value = Character.digit(hex.charAt(last), 16) & mask;
+            for (int nibble = 0; nibble < 16; nibble++) {
+                if ((nibble & mask) == value) trie[node * 16 + nibble] = ACCEPT;
+            }
+        }
+        return Arrays.copyOf(trie, nodes * 16);
+    }
+}
@@ -0,0 +1,233 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+
+/**
+ * Open-addressing set of EPC identifiers packed into primitive {@code long} columns.
+ * <p>
+ * Hex EPCs of up to 128 bits (the usual 96-bit and 128-bit encodings) are parsed straight
+ * from the reader's tag ID into two longs plus a nibble count, so a lookup or insert of an
+ * already known tag does not allocate. Every tag receives a dense ordinal in insertion order,
+ * which other per-tag tables can use as a row index.
+ * <p>
+ * Footprint: for 100,000 unique 96-bit EPCs the probe table (262,144 ints) and the key columns
+ * (102,400 x 17 bytes) come to about 2.8 MB, against roughly 14 MB for a {@code HashSet<String>}
+ * holding the same IDs. Both live in native memory ({@link ColumnChunks} and a direct buffer),
+ * so the Java heap stays flat however many tags a session sees; {@link #offHeapBytes()} reports
+ * the figure for the current size.
+ * <p>
+ * IDs that are not hex or are longer than 128 bits fall back to a regular map and still get an
+ * ordinal. This class is not thread-safe.
+ */
+class EpcSet {
+    private static final int MAX_NIBBLES = 32;
+    private static final byte OVERFLOW = -1;
+    private static final int MIN_CAPACITY = 16;
+    private static final int ROW_BYTES = 17;
+    private static final int LO_OFFSET = ColumnChunks.ROWS * 8;
+    private static final int LENGTH_OFFSET = ColumnChunks.ROWS * 16;
+
+    /** Probe table: ordinal + 1 per slot, 0 marks an empty slot. Load factor is kept at or below 0.5. */
+    private IntBuffer table;
+    private int mask;
+
+    /** Per chunk: high words, low words, then nibble counts. */
+    private final ColumnChunks keys;
+    private int size;
+
+    private final HashMap<String, Integer> overflowIndex = new HashMap<>();
+    private final ArrayList<String> overflowIds = new ArrayList<>();
+
+    /**
+     * Creates a set sized for the expected number of unique tags.
+     * @param expectedTags Number of tags the set should hold before it first grows.
+     */
+    EpcSet(int expectedTags) {
+        int capacity = Math.max(MIN_CAPACITY, expectedTags);
+        keys = new ColumnChunks(ROW_BYTES, capacity);
+        table = newTable(tableSizeFor(capacity));
+        mask = table.capacity() - 1;
+    }
+
+    /**
+     * Adds an EPC to the set.
+     * @param epc Hex EPC as reported by {@code TagData.getTagID()}.
+     * @return The new ordinal if the EPC was not present, otherwise {@code -(ordinal + 1)}.
+     */
+    int add(String epc) {
+        int nibbles = epc.length();
+        if (nibbles == 0 || nibbles > MAX_NIBBLES) return addOverflow(epc);
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < nibbles; i++) {
+            int digit = Character.digit(epc.charAt(i), 16);
+            if (digit < 0) return addOverflow(epc);
+            hi = (hi << 4) | (lo >>> 60);
+            lo = (lo << 4) | digit;
+        }
+        int slot = hash(hi, lo, nibbles) & mask;
+        while (true) {
+            int entry = table.get(slot);
+            if (entry == 0) break;
+            if (matches(entry - 1, hi, lo, nibbles)) return -entry;
+            slot = (slot + 1) & mask;
+        }
+        int ordinal = append(hi, lo, (byte) nibbles);
+        table.put(slot, ordinal + 1);
+        if (size * 2 > table.capacity()) rehash(table.capacity() * 2);
+        return ordinal;
+    }
+
+    /**
+     * Checks whether an EPC is present.
+     * @param epc Hex EPC.
+     * @return The ordinal of the EPC, or -1 if it is not in the set.
+     */
+    int indexOf(String epc) {
+        int nibbles = epc.length();
+        if (nibbles == 0 || nibbles > MAX_NIBBLES) return overflowOrdinal(epc);
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < nibbles; i++) {
+            int digit = Character.digit(epc.charAt(i), 16);
+            if (digit < 0) return overflowOrdinal(epc);
+            hi = (hi << 4) | (lo >>> 60);
+            lo = (lo << 4) | digit;
+        }
+        int slot = hash(hi, lo, nibbles) & mask;
+        while (true) {
+            int entry = table.get(slot);
+            if (entry == 0) return -1;
+            if (matches(entry - 1, hi, lo, nibbles)) return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns true if the EPC is present.
+     * @param epc Hex EPC.
+     * @return True if the set contains the EPC.
+     */
+    boolean contains(String epc) {
+        return indexOf(epc) >= 0;
+    }
+
+    /**
+     * Rebuilds the hex EPC for an ordinal. Allocates, so intended for display and export only.
+     * @param ordinal Ordinal returned by {@link #add(String)}.
+     * @return The upper-case hex EPC.
+     */
+    String get(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) throw new IndexOutOfBoundsException("ordinal " + ordinal + ", size " + size);
+        ByteBuffer chunk = keys.chunk(ordinal);
+        int slot = ColumnChunks.slot(ordinal);
+        int nibbles = chunk.get(LENGTH_OFFSET + slot);
+        long lo = chunk.getLong(LO_OFFSET + (slot << 3));
+        if (nibbles == OVERFLOW) return overflowIds.get((int) lo);
+        char[] out = new char[nibbles];
+        long hi = chunk.getLong(slot << 3);
+        for (int i = nibbles - 1; i >= 0; i--) {
+            out[i] = Character.toUpperCase(Character.forDigit((int) (lo & 0xF), 16));
+            lo = (lo >>> 4) | (hi << 60);
+            hi >>>= 4;
+        }
+        return new String(out);
+    }
+
+    /**
+     * @return Number of unique EPCs in the set.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all EPCs while keeping the allocated columns for the next session.
+     */
+    void clear() {
+        for (int i = 0; i < table.capacity(); i++) {
+            table.put(i, 0);
+        }
+        size = 0;
+        overflowIndex.clear();
+        overflowIds.clear();
+    }
+
+    /**
+     * Native memory held by the key columns and probe table.
+     * @return Size in bytes, excluding any overflow IDs.
+     */
+    long offHeapBytes() {
+        return (long) table.capacity() * 4 + keys.bytes();
+    }
+
+    private boolean matches(int ordinal, long hi, long lo, int nibbles) {
+        ByteBuffer chunk = keys.chunk(ordinal);
+        int slot = ColumnChunks.slot(ordinal);
+        return chunk.getLong(LO_OFFSET + (slot << 3)) == lo && chunk.getLong(slot << 3) == hi
+                && chunk.get(LENGTH_OFFSET + slot) == nibbles;
+    }
+
+    private int append(long hi, long lo, byte nibbles) {
+        if (size == keys.capacity()) keys.ensureRows(size + 1);
+        ByteBuffer chunk = keys.chunk(size);
+        int slot = ColumnChunks.slot(size);
+        chunk.putLong(slot << 3, hi);
+        chunk.putLong(LO_OFFSET + (slot << 3), lo);
+        chunk.put(LENGTH_OFFSET + slot, nibbles);
+        return size++;
+    }
+
+    private int addOverflow(String epc) {
+        Integer existing = overflowIndex.get(epc);
+        if (existing != null) return -(existing + 1);
+        int ordinal = append(0, overflowIds.size(), OVERFLOW);
+        overflowIds.add(epc);
+        overflowIndex.put(epc, ordinal);
+        return ordinal;
+    }
+
+    private int overflowOrdinal(String epc) {
+        Integer existing = overflowIndex.get(epc);
+        return existing != null ? existing : -1;
+    }
+
+    private void rehash(int newLength) {
+        table = newTable(newLength);
+        mask = newLength - 1;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            ByteBuffer chunk = keys.chunk(ordinal);
+            int slot = ColumnChunks.slot(ordinal);
+            byte nibbles = chunk.get(LENGTH_OFFSET + slot);
+            if (nibbles == OVERFLOW) continue;
+            int entry = hash(chunk.getLong(slot << 3), chunk.getLong(LO_OFFSET + (slot << 3)), nibbles) & mask;
+            while (table.get(entry) != 0) entry = (entry + 1) & mask;
+            table.put(entry, ordinal + 1);
+        }
+    }
+
+    private static IntBuffer newTable(int length) {
+        return ByteBuffer.allocateDirect(length * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int length = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        return Math.max(length, MIN_CAPACITY * 2);
+    }
+
+    /**
+     * Hash of a packed EPC; shared with {@link ExpectedManifest}, whose files depend on it.
+     */
+    static int hash(long hi, long lo, int nibbles) {
+        long h = lo * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(hi, 31) ^ nibbles;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,138 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Separate single-threaded execution lanes for the handler's background work.
+ * <p>
+ * Connection control (connect, disconnect, dispose, inventory abort), reader configuration and
+ * scanner SDK setup each get their own worker thread, so a slow connect no longer holds up a
+ * barcode pull and a queue of configuration requests never delays a disconnect. The control lane
+ * runs at a higher OS priority than the others and only file output runs at background
+ * priority. Tag delivery is not a lane; it stays on the {@link TagBatchQueue} consumer thread,
+ * and scanner commands run on the {@link ScannerCommandQueue}'s own thread.
+ * <p>
+ * Each lane records how many tasks are queued and how long tasks waited before starting.
+ */
+class ExecutionLanes {
+    private static final String TAG = "ExecutionLanes";
+
+    /**
+     * Work categories, highest priority first.
+     */
+    enum Lane {
+        /** Connect, disconnect, dispose and inventory abort. */
+        CONTROL(Process.THREAD_PRIORITY_FOREGROUND),
+        /** Trigger, keylayout and ingestion configuration. */
+        CONFIG(Process.THREAD_PRIORITY_DEFAULT),
+        /** Scanner SDK setup and session; it gates barcode scanning, so not background. */
+        SCANNER(Process.THREAD_PRIORITY_DEFAULT),
+        /** File output such as diagnostic dumps. */
+        IO(Process.THREAD_PRIORITY_BACKGROUND);
+
+        final int threadPriority;
+
+        Lane(int threadPriority) {
+            this.threadPriority = threadPriority;
+        }
+    }
+
+    private static class LaneStats {
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+    }
+
+    private final ThreadPoolExecutor[] workers = new ThreadPoolExecutor[Lane.values().length];
+    private final LaneStats[] stats = new LaneStats[Lane.values().length];
+
+    ExecutionLanes() {
+        for (Lane lane : Lane.values()) {
+            workers[lane.ordinal()] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> new Thread(() -> {
+                        Process.setThreadPriority(lane.threadPriority);
+                        runnable.run();
+                    }, "Lane-" + lane.name()));
+            stats[lane.ordinal()] = new LaneStats();
+        }
+    }
+
+    /**
+     * Queues a task on a lane. Tasks on the same lane run in submission order.
+     * @param lane Target lane.
+     * @param task The task; exceptions are logged and do not stop the lane.
+     * @return False if the lane is shut down and the task was dropped.
+     */
+    boolean execute(Lane lane, Runnable task) {
+        LaneStats laneStats = stats[lane.ordinal()];
+        long enqueuedNanos = System.nanoTime();
+        try {
+            workers[lane.ordinal()].execute(() -> {
+                long wait = System.nanoTime() - enqueuedNanos;
+                laneStats.totalWaitNanos.addAndGet(wait);
+                laneStats.maxWaitNanos.accumulateAndGet(wait, Math::max);
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    Log.e(TAG, "Task failed on lane " + lane.name(), e);
+                } finally {
+                    laneStats.completed.incrementAndGet();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Lane " + lane.name() + " is shut down, task dropped");
+            return false;
+        }
+    }
+
+    /**
+     * @param lane Target lane.
+     * @return An {@link Executor} view that submits to the given lane.
+     */
+    Executor executor(Lane lane) {
+        return task -> execute(lane, task);
+    }
+
+    /**
+     * @param lane Lane to inspect.
+     * @return Tasks queued but not yet started.
+     */
+    int depth(Lane lane) {
+        return workers[lane.ordinal()].getQueue().size();
+    }
+
+    /**
+     * @return Queue depth, completed count and average/maximum wait per lane.
+     */
+    String describe() {
+        StringBuilder sb = new StringBuilder("lanes:");
+        for (Lane lane : Lane.values()) {
+            LaneStats laneStats = stats[lane.ordinal()];
+            long completed = laneStats.completed.get();
+            double avgWaitMs = completed == 0 ? 0 : laneStats.totalWaitNanos.get() / 1e6 / completed;
+            sb.append(String.format(Locale.US, " %s depth=%d done=%d wait avg=%.2f ms max=%.2f ms;",
+                    lane.name(), depth(lane), completed, avgWaitMs, laneStats.maxWaitNanos.get() / 1e6));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stops accepting tasks; tasks already queued still run.
+     */
+    void shutdown() {
+        for (ThreadPoolExecutor worker : workers) {
+            worker.shutdown();
+        }
+    }
+}
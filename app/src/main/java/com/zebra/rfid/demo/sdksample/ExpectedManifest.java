@@ -0,0 +1,470 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+
+/**
+ * Expected inventory of a cycle count, reconciled against the reads of the session.
+ * <p>
+ * The manifest is a text file with one hex EPC per line; leading whitespace and anything after
+ * the first comma, semicolon or whitespace following the EPC are ignored. Blank lines are
+ * skipped; lines that do not start with a hex EPC (such as a CSV header) are counted as
+ * rejected. On first load it is compiled into an open-addressing table of packed EPCs in a
+ * cache file, using the same packing and hash as {@link EpcSet}; for three million EPCs that
+ * takes about a second. From then on the table is simply memory-mapped read-only, so it
+ * costs no heap and loads in milliseconds. The cache is rebuilt when the source file's size or
+ * modification time change.
+ * <p>
+ * {@link #reconcile(String)} is called once per new unique tag and costs one probe into the
+ * table; found tags set a bit indexed by their table slot, other tags go to an {@link EpcSet}
+ * of unexpected EPCs. Found, missing and unexpected counts are kept up to date. Not thread-safe;
+ * the UI guards it with the tag set's lock.
+ */
+class ExpectedManifest {
+    private static final String TAG = "ExpectedManifest";
+    private static final int MAGIC = 0x4D414E31; // "MAN1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 20;
+    private static final int MAX_NIBBLES = 32;
+    /** Largest table whose mapping stays under 2 GiB at {@link #SLOT_BYTES} per slot. */
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final int READ_CHUNK_BYTES = 256 * 1024;
+    private static final byte[] HEX = hexTable();
+    /** Line parser states of {@link #compile}. */
+    private static final int LEADING = 0;
+    private static final int DIGITS = 1;
+    private static final int TAIL = 2;
+    private static final int INVALID = 3;
+
+    /**
+     * Outcome of reconciling one tag.
+     */
+    enum Match { FOUND, UNEXPECTED }
+
+    private final File source;
+    private final ByteBuffer table;
+    private final int mask;
+    private final int expected;
+    private final int duplicates;
+    private final int rejected;
+    private final long loadMs;
+    private final boolean compiled;
+
+    private final long[] foundBits;
+    private final EpcSet unexpectedTags = new EpcSet(1024);
+    private int found;
+
+    private ExpectedManifest(File source, ByteBuffer table, int capacity, int expected, int duplicates,
+                             int rejected, long loadMs, boolean compiled) {
+        this.source = source;
+        this.table = table;
+        this.mask = capacity - 1;
+        this.expected = expected;
+        this.duplicates = duplicates;
+        this.rejected = rejected;
+        this.loadMs = loadMs;
+        this.compiled = compiled;
+        this.foundBits = new long[(capacity + 63) / 64];
+    }
+
+    /**
+     * Maps the compiled form of a manifest, compiling it first if the cache is missing or stale.
+     * Performs file I/O; call off the UI thread.
+     * @param source Manifest text file.
+     * @param cache Compiled table; created or replaced as needed.
+     * @return The loaded manifest with no tags found yet.
+     * @throws IOException If the manifest cannot be read or the cache cannot be written.
+     */
+    static ExpectedManifest load(File source, File cache) throws IOException {
+        long start = System.currentTimeMillis();
+        boolean compiled = false;
+        if (!isCacheValid(source, cache)) {
+            compile(source, cache);
+            compiled = true;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(cache, "r"); FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int capacity = mapped.getInt(8);
+            ExpectedManifest manifest = new ExpectedManifest(source, mapped, capacity, mapped.getInt(12),
+                    mapped.getInt(32), mapped.getInt(36), System.currentTimeMillis() - start, compiled);
+            Log.d(TAG, manifest.describe());
+            return manifest;
+        }
+    }
+
+    /**
+     * Reconciles a tag seen for the first time in the session.
+     * @param epc Hex EPC.
+     * @return Whether the tag was expected.
+     */
+    Match reconcile(String epc) {
+        int slot = find(epc);
+        if (slot < 0) {
+            unexpectedTags.add(epc);
+            return Match.UNEXPECTED;
+        }
+        long bit = 1L << slot;
+        if ((foundBits[slot >>> 6] & bit) == 0) {
+            foundBits[slot >>> 6] |= bit;
+            found++;
+        }
+        return Match.FOUND;
+    }
+
+    /**
+     * Reconciles every tag already in the session, e.g. after loading a manifest mid-count.
+     * @param tags Unique tags of the session.
+     */
+    void reconcileAll(EpcSet tags) {
+        for (int i = 0, n = tags.size(); i < n; i++) {
+            reconcile(tags.get(i));
+        }
+    }
+
+    /**
+     * Forgets all found and unexpected tags for a new count.
+     */
+    void reset() {
+        Arrays.fill(foundBits, 0);
+        unexpectedTags.clear();
+        found = 0;
+    }
+
+    /**
+     * @return Number of distinct EPCs in the manifest.
+     */
+    int getExpectedCount() {
+        return expected;
+    }
+
+    /**
+     * @return Expected tags seen so far.
+     */
+    int getFoundCount() {
+        return found;
+    }
+
+    /**
+     * @return Expected tags not seen yet.
+     */
+    int getMissingCount() {
+        return expected - found;
+    }
+
+    /**
+     * @return Tags seen that are not in the manifest.
+     */
+    int getUnexpectedCount() {
+        return unexpectedTags.size();
+    }
+
+    /**
+     * @return Counts for the status line.
+     */
+    String summary() {
+        return String.format(Locale.US, "Found %d/%d, missing %d, unexpected %d",
+                found, expected, expected - found, unexpectedTags.size());
+    }
+
+    /**
+     * @return Manifest size, load time and reconciliation counts.
+     */
+    String describe() {
+        return String.format(Locale.US, "manifest %s: %d expected (%d duplicate, %d rejected lines), %s in %d ms, %d KB mapped\n  %s",
+                source.getName(), expected, duplicates, rejected, compiled ? "compiled" : "mapped", loadMs,
+                table.capacity() / 1024, summary());
+    }
+
+    /**
+     * Takes a copy of the current result for {@link #writeDiscrepancies}; cheap enough to run
+     * under the caller's lock.
+     * @return Found bits and unexpected EPCs at this moment.
+     */
+    Snapshot snapshot() {
+        ArrayList<String> unexpected = new ArrayList<>(unexpectedTags.size());
+        for (int i = 0, n = unexpectedTags.size(); i < n; i++) {
+            unexpected.add(unexpectedTags.get(i));
+        }
+        return new Snapshot(foundBits.clone(), unexpected);
+    }
+
+    /**
+     * Found state copied out of the manifest.
+     */
+    static class Snapshot {
+        final long[] foundBits;
+        final ArrayList<String> unexpected;
+
+        Snapshot(long[] foundBits, ArrayList<String> unexpected) {
+            this.foundBits = foundBits;
+            this.unexpected = unexpected;
+        }
+    }
+
+    /**
+     * Writes every missing and unexpected EPC as {@code epc,status} CSV.
+     * @param snapshot Result taken with {@link #snapshot()}.
+     * @param dir Output directory.
+     * @return The file written.
+     * @throws IOException If writing fails.
+     */
+    File writeDiscrepancies(Snapshot snapshot, File dir) throws IOException {
+        File file = new File(dir, String.format(Locale.US, "reconciliation_%d.csv", System.currentTimeMillis()));
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024)) {
+            writer.write("epc,status\n");
+            char[] epc = new char[MAX_NIBBLES];
+            for (int slot = 0; slot <= mask; slot++) {
+                int offset = HEADER_BYTES + slot * SLOT_BYTES;
+                int nibbles = table.getInt(offset + 16);
+                if (nibbles == 0 || (snapshot.foundBits[slot >>> 6] & (1L << slot)) != 0) continue;
+                writer.write(epc, 0, unpack(table.getLong(offset), table.getLong(offset + 8), nibbles, epc));
+                writer.write(",missing\n");
+            }
+            for (String unexpected : snapshot.unexpected) {
+                writer.write(unexpected);
+                writer.write(",unexpected\n");
+            }
+        }
+        return file;
+    }
+
+    private int find(String epc) {
+        int nibbles = epc.length();
+        if (nibbles == 0 || nibbles > MAX_NIBBLES) return -1;
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < nibbles; i++) {
+            int digit = Character.digit(epc.charAt(i), 16);
+            if (digit < 0) return -1;
+            hi = (hi << 4) | (lo >>> 60);
+            lo = (lo << 4) | digit;
+        }
+        int slot = EpcSet.hash(hi, lo, nibbles) & mask;
+        while (true) {
+            int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            int stored = table.getInt(offset + 16);
+            if (stored == 0) return -1;
+            if (stored == nibbles && table.getLong(offset + 8) == lo && table.getLong(offset) == hi) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int unpack(long hi, long lo, int nibbles, char[] out) {
+        for (int i = nibbles - 1; i >= 0; i--) {
+            out[i] = Character.toUpperCase(Character.forDigit((int) (lo & 0xF), 16));
+            lo = (lo >>> 4) | (hi << 60);
+            hi >>>= 4;
+        }
+        return nibbles;
+    }
+
+    private static boolean isCacheValid(File source, File cache) throws IOException {
+        if (!cache.exists() || cache.length() < HEADER_BYTES) return false;
+        try (RandomAccessFile raf = new RandomAccessFile(cache, "r")) {
+            return raf.readInt() == MAGIC && raf.readInt() == VERSION
+                    && readLongAt(raf, 16) == source.length() && readLongAt(raf, 24) == source.lastModified();
+        }
+    }
+
+    private static long readLongAt(RandomAccessFile raf, long position) throws IOException {
+        raf.seek(position);
+        return raf.readLong();
+    }
+
+    /**
+     * Parses the manifest in two sequential passes over the text file through a fixed buffer,
+     * without creating a string per line: the first counts lines to size the table, the second
+     * parses each line with a hex lookup table and inserts it into the mapped table.
+     */
+    private static void compile(File source, File cache) throws IOException {
+        File tmp = new File(cache.getPath() + ".tmp");
+        try (RandomAccessFile in = new RandomAccessFile(source, "r"); FileChannel inChannel = in.getChannel();
+             RandomAccessFile out = new RandomAccessFile(tmp, "rw"); FileChannel outChannel = out.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK_BYTES);
+            byte[] text = buffer.array();
+            long lines = 1;
+            long position = 0;
+            int n;
+            while ((n = inChannel.read(buffer, position)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (text[i] == '\n') lines++;
+                }
+                position += n;
+                buffer.clear();
+            }
+            long wanted = Math.max(16, lines + lines / 3);
+            if (wanted > MAX_CAPACITY) throw new IOException("Manifest too large: " + lines + " lines");
+            int capacity = Integer.highestOneBit((int) wanted - 1) << 1;
+            out.setLength(0);
+            MappedByteBuffer table = outChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+            TableBuilder builder = new TableBuilder(table, capacity);
+            int rejected = 0;
+            long hi = 0;
+            long lo = 0;
+            int nibbles = 0;
+            int state = LEADING;
+            position = 0;
+            while (true) {
+                n = inChannel.read(buffer, position);
+                boolean end = n <= 0;
+                if (end) {
+                    // Terminates a last line without a newline.
+                    text[0] = '\n';
+                    n = 1;
+                }
+                for (int i = 0; i < n; i++) {
+                    byte b = text[i];
+                    if (b != '\n') {
+                        if (state == LEADING) {
+                            if (b == ' ' || b == '\t' || b == '\r') continue;
+                            state = DIGITS;
+                        }
+                        if (state == DIGITS) {
+                            int digit = HEX[b & 0xFF];
+                            if (digit >= 0) {
+                                hi = (hi << 4) | (lo >>> 60);
+                                lo = (lo << 4) | digit;
+                                nibbles++;
+                            } else {
+                                state = b == '\r' || b == ',' || b == ';' || b == ' ' || b == '\t' ? TAIL : INVALID;
+                            }
+                        }
+                        continue;
+                    }
+                    // End of line: blank lines and lines with only a separator are skipped.
+                    if (state == INVALID || nibbles > MAX_NIBBLES) {
+                        rejected++;
+                    } else if (nibbles > 0) {
+                        builder.add(hi, lo, nibbles);
+                    }
+                    hi = 0;
+                    lo = 0;
+                    nibbles = 0;
+                    state = LEADING;
+                }
+                if (end) break;
+                position += n;
+                buffer.clear();
+            }
+            builder.flush();
+            table.putInt(0, MAGIC);
+            table.putInt(4, VERSION);
+            table.putInt(8, capacity);
+            table.putInt(12, builder.count);
+            table.putLong(16, source.length());
+            table.putLong(24, source.lastModified());
+            table.putInt(32, builder.duplicates);
+            table.putInt(36, rejected);
+            table.force();
+        }
+        if (cache.exists() && !cache.delete()) throw new IOException("Cannot replace " + cache);
+        if (!tmp.renameTo(cache)) throw new IOException("Cannot rename " + tmp);
+    }
+
+    /**
+     * Inserts EPCs into the table in runs that each stay within one region of it. A table of
+     * millions of slots is far larger than the CPU caches, so inserting in file order costs a
+     * cache and TLB miss per EPC; buffering EPCs per region and inserting a region's EPCs
+     * together keeps each run on a few hundred KB of the table. Linear probing gives the same
+     * lookups whatever the insertion order.
+     */
+    private static class TableBuilder {
+        private static final int REGION_BITS = 7;
+        private static final int RUN = 2048;
+
+        final ByteBuffer table;
+        final int mask;
+        final int shift;
+        final int run;
+        final long[] his;
+        final long[] los;
+        final int[] nibbleCounts;
+        final int[] fill;
+        int count;
+        int duplicates;
+
+        TableBuilder(ByteBuffer table, int capacity) {
+            this.table = table;
+            this.mask = capacity - 1;
+            int regionBits = Math.min(REGION_BITS, Integer.numberOfTrailingZeros(capacity));
+            this.shift = Integer.numberOfTrailingZeros(capacity) - regionBits;
+            int regions = 1 << regionBits;
+            run = Math.min(RUN, capacity >>> regionBits);
+            his = new long[regions * run];
+            los = new long[regions * run];
+            nibbleCounts = new int[regions * run];
+            fill = new int[regions];
+        }
+
+        void add(long hi, long lo, int nibbles) {
+            int region = (EpcSet.hash(hi, lo, nibbles) & mask) >>> shift;
+            int i = region * run + fill[region]++;
+            his[i] = hi;
+            los[i] = lo;
+            nibbleCounts[i] = nibbles;
+            if (fill[region] == run) flush(region);
+        }
+
+        void flush() {
+            for (int region = 0; region < fill.length; region++) {
+                flush(region);
+            }
+        }
+
+        private void flush(int region) {
+            for (int i = region * run, end = i + fill[region]; i < end; i++) {
+                insert(his[i], los[i], nibbleCounts[i]);
+            }
+            fill[region] = 0;
+        }
+
+        private void insert(long hi, long lo, int nibbles) {
+            int slot = EpcSet.hash(hi, lo, nibbles) & mask;
+            while (true) {
+                int offset = HEADER_BYTES + slot * SLOT_BYTES;
+                int stored = table.getInt(offset + 16);
+                if (stored == 0) {
+                    table.putLong(offset, hi);
+                    table.putLong(offset + 8, lo);
+                    table.putInt(offset + 16, nibbles);
+                    count++;
+                    return;
+                }
+                if (stored == nibbles && table.getLong(offset + 8) == lo && table.getLong(offset) == hi) {
+                    duplicates++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    private static byte[] hexTable() {
+        byte[] hex = new byte[256];
+        Arrays.fill(hex, (byte) -1);
+        for (int c = '0'; c <= '9'; c++) {
+            hex[c] = (byte) (c - '0');
+        }
+        for (int c = 'A'; c <= 'F'; c++) {
+            hex[c] = (byte) (c - 'A' + 10);
+            hex[c + ('a' - 'A')] = (byte) (c - 'A' + 10);
+        }
+        return hex;
+    }
+}
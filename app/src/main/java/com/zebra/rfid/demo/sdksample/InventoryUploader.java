@@ -0,0 +1,526 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import com.google.gson.stream.JsonWriter;
+import com.zebra.rfid.api3.TagData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Sends the reads of the tag pipeline to an inventory backend as batched, gzip-compressed deltas.
+ * <p>
+ * {@link #offer} folds each read into a per-EPC delta (reads since the last batch, peak RSSI,
+ * antenna, last seen), so a tag read a thousand times between batches costs one row. Deltas are
+ * sealed every {@link #FLUSH_INTERVAL_MS} or at {@link #MAX_BATCH_TAGS} tags into a numbered
+ * JSON Lines batch, gzipped and written to a spool directory before it is sent; the spool file is
+ * deleted only once the backend acknowledges it with a 2xx, so a batch survives disconnects and
+ * restarts and an acknowledged batch is never sent again.
+ * <p>
+ * Up to {@code window} batches are in flight at once; a batch that fails with an I/O error, 408,
+ * 429 or 5xx keeps its slot and is retried with capped exponential backoff and jitter. Other
+ * 4xx responses drop the batch. While the window and the ready backlog are full, new reads keep
+ * merging into the open delta instead of producing more batches, so an outage costs memory per
+ * unique tag and not per read.
+ * <p>
+ * Wire format: {@code POST} with {@code Content-Type: application/x-ndjson},
+ * {@code Content-Encoding: gzip} and an {@code Idempotency-Key} of device id and sequence. The
+ * first line is {@code {"device","session","sequence","sealed_ms"}}, each following line one
+ * delta {@code {"epc","reads","rssi","antenna","last_seen_ms"}}. Batches may be acknowledged out
+ * of order, and a retried batch may arrive twice if an acknowledgement was lost; the backend
+ * applies deltas additively and ignores a sequence it has already applied. Any HTTP server that
+ * answers 2xx, such as a local stub on the development machine, is enough to exercise it.
+ */
+class InventoryUploader {
+    private static final String TAG = "InventoryUploader";
+    static final int MAX_BATCH_TAGS = 500;
+    static final long FLUSH_INTERVAL_MS = 2000;
+    private static final int MAX_READY_BATCHES = 8;
+    private static final long BACKOFF_BASE_MS = 500;
+    private static final long BACKOFF_MAX_MS = 60000;
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 15000;
+    private static final String SPOOL_SUFFIX = ".jsonl.gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String SEQUENCE_FILE = "next_sequence";
+    private static final String DEVICE_FILE = "device_id";
+
+    /**
+     * Reads of one EPC since the last sealed batch.
+     */
+    private static class Delta {
+        int reads;
+        short rssi = Short.MIN_VALUE;
+        short antenna;
+        long lastSeenMs;
+
+        /**
+         * Folds in deltas of a batch that could not be spooled.
+         */
+        void merge(Delta other) {
+            reads += other.reads;
+            if (other.rssi > rssi) rssi = other.rssi;
+            if (other.lastSeenMs >= lastSeenMs) {
+                antenna = other.antenna;
+                lastSeenMs = other.lastSeenMs;
+            }
+        }
+    }
+
+    /**
+     * Deltas taken out of the open delta to be written as one spool file.
+     */
+    private static class Batch {
+        final long sequence;
+        final long session;
+        final ArrayList<String> epcs = new ArrayList<>(MAX_BATCH_TAGS);
+        final ArrayList<Delta> deltas = new ArrayList<>(MAX_BATCH_TAGS);
+        long reads;
+
+        Batch(long sequence, long session) {
+            this.sequence = sequence;
+            this.session = session;
+        }
+    }
+
+    private final URL endpoint;
+    private final File spoolDir;
+    private final int window;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /** Serializes spool file and sequence file writes; never held together with {@code this}. */
+    private final Object spoolLock = new Object();
+    private final HashMap<String, Delta> open = new HashMap<>();
+    private final ArrayDeque<File> ready = new ArrayDeque<>();
+    private String deviceId;
+    private long session;
+    private long nextSequence;
+    private int inFlight;
+    private boolean sealScheduled;
+    private volatile boolean running;
+
+    private long batchesAcked;
+    private long rowsAcked;
+    private long readsAcked;
+    private long rawBytes;
+    private long compressedBytes;
+    private long wireBytes;
+    private long retries;
+    private long dropped;
+    private long requestNanos;
+    private long firstAckMs = -1;
+    private long lastAckMs;
+    private String lastError = "";
+
+    /**
+     * @param endpoint Backend URL batches are posted to.
+     * @param spoolDir Directory for batches not yet acknowledged; created if missing.
+     * @param window Maximum number of batches in flight.
+     */
+    InventoryUploader(URL endpoint, File spoolDir, int window) {
+        this.endpoint = endpoint;
+        this.spoolDir = spoolDir;
+        this.window = window;
+        this.scheduler = new ScheduledThreadPoolExecutor(window, r -> new Thread(r, "InventoryUpload"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Loads the device id, sequence and spooled batches left by an earlier run and starts sending
+     * them. Temporary files that a crash left before their rename are deleted. Performs file I/O;
+     * call off the UI thread.
+     * @throws IOException If the spool directory cannot be used.
+     */
+    synchronized void start() throws IOException {
+        if (!spoolDir.isDirectory() && !spoolDir.mkdirs()) throw new IOException("Cannot create " + spoolDir);
+        File[] stale = spoolDir.listFiles((dir, name) -> name.endsWith(TEMP_SUFFIX));
+        if (stale != null) {
+            for (File file : stale) {
+                if (!file.delete()) Log.w(TAG, "Cannot delete " + file);
+            }
+        }
+        deviceId = readText(new File(spoolDir, DEVICE_FILE));
+        if (deviceId == null) {
+            deviceId = UUID.randomUUID().toString();
+            writeText(new File(spoolDir, DEVICE_FILE), deviceId);
+        }
+        nextSequence = 1;
+        String sequence = readText(new File(spoolDir, SEQUENCE_FILE));
+        if (sequence != null) {
+            try {
+                nextSequence = Long.parseLong(sequence);
+            } catch (NumberFormatException e) {
+                // Continue after the highest spooled batch below.
+                Log.w(TAG, "Unreadable sequence file, resuming after the spooled batches");
+            }
+        }
+        File[] spooled = spoolDir.listFiles((dir, name) -> name.endsWith(SPOOL_SUFFIX));
+        if (spooled != null) {
+            Arrays.sort(spooled);
+            for (File file : spooled) {
+                ready.add(file);
+                nextSequence = Math.max(nextSequence, sequenceOf(file) + 1);
+            }
+        }
+        session = System.currentTimeMillis();
+        running = true;
+        Log.d(TAG, "Sync to " + endpoint + " resumed with " + ready.size() + " spooled batches");
+        pump();
+    }
+
+    /**
+     * Folds a batch of reads into the open delta. Cheap enough for the tag consumer thread.
+     * @param batch Reads from the tag queue.
+     */
+    void offer(TagData[] batch) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (!running) return;
+            for (TagData tag : batch) {
+                if (tag == null || tag.getTagID() == null) continue;
+                Delta delta = open.get(tag.getTagID());
+                if (delta == null) {
+                    delta = new Delta();
+                    open.put(tag.getTagID(), delta);
+                }
+                delta.reads++;
+                if (tag.getPeakRSSI() > delta.rssi) delta.rssi = tag.getPeakRSSI();
+                delta.antenna = tag.getAntennaID();
+                delta.lastSeenMs = now;
+            }
+            scheduleSeal();
+        }
+    }
+
+    /**
+     * Starts a new session; reads not yet sealed are discarded, spooled batches are still sent.
+     */
+    synchronized void newSession() {
+        open.clear();
+        session = Math.max(System.currentTimeMillis(), session + 1);
+    }
+
+    /**
+     * Spools the open delta and stops sending. Unacknowledged batches are sent by the next
+     * {@link #start()} on the same spool directory.
+     */
+    void stop() {
+        synchronized (this) {
+            if (!running) {
+                scheduler.shutdownNow();
+                return;
+            }
+            running = false;
+        }
+        while (hasOpenDeltas()) {
+            if (!seal()) break;
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return True between {@link #start()} and {@link #stop()}.
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return Batch, byte, retry and throughput counters.
+     */
+    synchronized String describe() {
+        long elapsedMs = lastAckMs - firstAckMs;
+        return String.format(Locale.US,
+                "sync: %d batches, %d rows, %d reads acked, %d in flight, %d spooled, %d retries, %d dropped\n"
+                        + "  %d KB sealed -> %d KB gzip (%.1fx), %d KB on wire, avg request %d ms, %.0f rows/s%s",
+                batchesAcked, rowsAcked, readsAcked, inFlight, ready.size() + inFlight, retries, dropped,
+                rawBytes / 1024, compressedBytes / 1024, compressedBytes > 0 ? (double) rawBytes / compressedBytes : 0,
+                wireBytes / 1024,
+                batchesAcked > 0 ? TimeUnit.NANOSECONDS.toMillis(requestNanos / batchesAcked) : 0,
+                elapsedMs > 0 ? rowsAcked * 1000.0 / elapsedMs : 0,
+                lastError.isEmpty() ? "" : ", last error: " + lastError);
+    }
+
+    private void sealTask() {
+        synchronized (this) {
+            sealScheduled = false;
+            if (!running || open.isEmpty() || ready.size() >= MAX_READY_BATCHES) return;
+        }
+        seal();
+        synchronized (this) {
+            scheduleSeal();
+        }
+        pump();
+    }
+
+    private synchronized boolean hasOpenDeltas() {
+        return !open.isEmpty();
+    }
+
+    /**
+     * Moves up to {@link #MAX_BATCH_TAGS} deltas into a new spool file. The deltas are taken out
+     * under the lock; encoding, compression and file writes happen outside it, so {@link #offer}
+     * never waits for the disk.
+     * @return False if the batch could not be written; its deltas are merged back.
+     */
+    private boolean seal() {
+        synchronized (spoolLock) {
+            Batch batch;
+            synchronized (this) {
+                if (open.isEmpty()) return true;
+                batch = new Batch(nextSequence++, session);
+                Iterator<HashMap.Entry<String, Delta>> it = open.entrySet().iterator();
+                while (it.hasNext() && batch.deltas.size() < MAX_BATCH_TAGS) {
+                    HashMap.Entry<String, Delta> entry = it.next();
+                    batch.epcs.add(entry.getKey());
+                    batch.deltas.add(entry.getValue());
+                    batch.reads += entry.getValue().reads;
+                    it.remove();
+                }
+            }
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(MAX_BATCH_TAGS * 96);
+            File file;
+            try {
+                encode(batch, raw);
+                file = new File(spoolDir, String.format(Locale.US, "%012d_%d_%d%s",
+                        batch.sequence, batch.deltas.size(), batch.reads, SPOOL_SUFFIX));
+                File tmp = new File(spoolDir, file.getName() + TEMP_SUFFIX);
+                try (OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp))) {
+                    raw.writeTo(out);
+                }
+                writeText(new File(spoolDir, SEQUENCE_FILE), Long.toString(batch.sequence + 1));
+                if (!tmp.renameTo(file)) throw new IOException("Cannot rename " + tmp);
+            } catch (IOException e) {
+                Log.e(TAG, "Error spooling batch " + batch.sequence, e);
+                synchronized (this) {
+                    lastError = e.getMessage();
+                    for (int i = 0; i < batch.epcs.size(); i++) {
+                        Delta newer = open.put(batch.epcs.get(i), batch.deltas.get(i));
+                        if (newer != null) batch.deltas.get(i).merge(newer);
+                    }
+                }
+                return false;
+            }
+            synchronized (this) {
+                ready.add(file);
+                rawBytes += raw.size();
+                compressedBytes += file.length();
+            }
+            return true;
+        }
+    }
+
+    private void encode(Batch batch, ByteArrayOutputStream raw) throws IOException {
+        JsonWriter json = new JsonWriter(new OutputStreamWriter(raw, StandardCharsets.UTF_8));
+        json.setLenient(true);
+        json.beginObject();
+        json.name("device").value(deviceId);
+        json.name("session").value(batch.session);
+        json.name("sequence").value(batch.sequence);
+        json.name("sealed_ms").value(System.currentTimeMillis());
+        json.endObject();
+        json.flush();
+        raw.write('\n');
+        for (int i = 0; i < batch.deltas.size(); i++) {
+            Delta delta = batch.deltas.get(i);
+            json.beginObject();
+            json.name("epc").value(batch.epcs.get(i));
+            json.name("reads").value(delta.reads);
+            json.name("rssi").value(delta.rssi);
+            json.name("antenna").value(delta.antenna);
+            json.name("last_seen_ms").value(delta.lastSeenMs);
+            json.endObject();
+            json.flush();
+            raw.write('\n');
+        }
+    }
+
+    /**
+     * Schedules sealing of the open delta: right away once a full batch is waiting, otherwise
+     * after the flush interval. Must hold the lock.
+     */
+    private void scheduleSeal() {
+        if (!running || sealScheduled || open.isEmpty() || ready.size() >= MAX_READY_BATCHES) return;
+        sealScheduled = true;
+        scheduler.schedule(this::sealTask, open.size() >= MAX_BATCH_TAGS ? 0 : FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void pump() {
+        while (running && inFlight < window && !ready.isEmpty()) {
+            File file = ready.poll();
+            inFlight++;
+            scheduler.execute(() -> send(file, 0));
+        }
+        scheduleSeal();
+    }
+
+    private void send(File file, int attempt) {
+        if (!running) return;
+        long sequence = sequenceOf(file);
+        byte[] body;
+        try {
+            body = readBytes(file);
+        } catch (IOException e) {
+            Log.e(TAG, "Spooled batch " + sequence + " unreadable, dropped", e);
+            finish(file, false, 0);
+            return;
+        }
+        long start = System.nanoTime();
+        int status;
+        String retryAfter = null;
+        try {
+            HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+            try {
+                connection.setRequestMethod("POST");
+                connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+                connection.setReadTimeout(READ_TIMEOUT_MS);
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(body.length);
+                connection.setRequestProperty("Content-Type", "application/x-ndjson");
+                connection.setRequestProperty("Content-Encoding", "gzip");
+                connection.setRequestProperty("Idempotency-Key", deviceId + "-" + sequence);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body);
+                }
+                synchronized (this) {
+                    wireBytes += body.length;
+                }
+                status = connection.getResponseCode();
+                retryAfter = connection.getHeaderField("Retry-After");
+                drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            status = -1;
+            synchronized (this) {
+                lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        if (status >= 200 && status < 300) {
+            finish(file, true, nanos);
+        } else if (status == -1 || status == 408 || status == 429 || status >= 500) {
+            long delayMs = backoffMs(attempt, retryAfter);
+            Log.w(TAG, "Batch " + sequence + " attempt " + (attempt + 1) + " failed (" + status + "), retry in " + delayMs + " ms");
+            synchronized (this) {
+                if (!running) return;
+                retries++;
+                if (status > 0) lastError = "HTTP " + status;
+                scheduler.schedule(() -> send(file, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+            }
+        } else {
+            Log.e(TAG, "Batch " + sequence + " rejected with HTTP " + status + ", dropped");
+            synchronized (this) {
+                lastError = "HTTP " + status;
+            }
+            finish(file, false, 0);
+        }
+    }
+
+    private void finish(File file, boolean acked, long nanos) {
+        if (!file.delete()) Log.w(TAG, "Could not delete " + file);
+        synchronized (this) {
+            inFlight--;
+            if (acked) {
+                long now = System.currentTimeMillis();
+                if (firstAckMs < 0) firstAckMs = now - TimeUnit.NANOSECONDS.toMillis(nanos);
+                lastAckMs = now;
+                batchesAcked++;
+                String[] parts = file.getName().split("[_.]");
+                rowsAcked += Long.parseLong(parts[1]);
+                readsAcked += Long.parseLong(parts[2]);
+                requestNanos += nanos;
+                lastError = "";
+            } else {
+                dropped++;
+            }
+        }
+        pump();
+    }
+
+    private static long backoffMs(int attempt, String retryAfter) {
+        if (retryAfter != null) {
+            try {
+                return Math.min(BACKOFF_MAX_MS, Long.parseLong(retryAfter.trim()) * 1000);
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form; fall back to exponential backoff
+            }
+        }
+        long delay = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(attempt, 16));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * Spool files are named {@code <sequence>_<rows>_<reads>.jsonl.gz}.
+     */
+    private static long sequenceOf(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(0, name.indexOf('_')));
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        if (in == null) return;
+        try (InputStream stream = in) {
+            byte[] buffer = new byte[1024];
+            while (stream.read(buffer) != -1) {
+                // discard so the connection can be reused
+            }
+        }
+    }
+
+    private static byte[] readBytes(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static String readText(File file) throws IOException {
+        if (!file.exists()) return null;
+        return new String(readBytes(file), StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Replaces the file through a temporary file and a rename, so a crash leaves either the old
+     * or the new text and never a truncated one.
+     */
+    private static void writeText(File file, String text) throws IOException {
+        File tmp = new File(file.getPath() + TEMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(text);
+            writer.flush();
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) throw new IOException("Cannot rename " + tmp);
+    }
+}
@@ -0,0 +1,113 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Fixed-memory latency histogram with log-linear buckets.
+ * <p>
+ * Values are recorded in microseconds. Below 64 us every value has its own bucket; above that
+ * each power of two is split into 32 sub-buckets, so any recorded value is reported within about
+ * 3% of its true value. The bucket array is sized once for values up to about 38 hours and
+ * recording is a couple of shifts and one atomic increment, with no allocation.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int MAX_SHIFT = 31;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + MAX_SHIFT * SUB_BUCKETS;
+    private static final long MAX_VALUE = (2L * SUB_BUCKETS << MAX_SHIFT) - 1;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * @param name Label used in reports.
+     */
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one latency.
+     * @param nanos Latency in nanoseconds; negative values are ignored.
+     */
+    void recordNanos(long nanos) {
+        if (nanos < 0) return;
+        long micros = Math.min(nanos / 1000, MAX_VALUE);
+        counts.incrementAndGet(bucketIndex(micros));
+        totalCount.incrementAndGet();
+        maxValue.accumulateAndGet(micros, Math::max);
+    }
+
+    private static int bucketIndex(long micros) {
+        if (micros < LINEAR_LIMIT) return (int) micros;
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @return Highest value that maps to the bucket, in microseconds.
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) return index;
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long sub = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * @return Number of recorded values.
+     */
+    long count() {
+        return totalCount.get();
+    }
+
+    /**
+     * @param percentile Percentile in the range 0..100.
+     * @return Upper bound of the bucket holding the percentile, in microseconds, or 0 if empty.
+     */
+    long percentileMicros(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(bucketUpperBound(i), maxValue.get());
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * @return Largest recorded value in microseconds.
+     */
+    long maxMicros() {
+        return maxValue.get();
+    }
+
+    /**
+     * @return One-line summary with count, p50, p99 and max in milliseconds.
+     */
+    String describe() {
+        return String.format(Locale.US, "%s: n=%d p50=%.1f ms p99=%.1f ms max=%.1f ms", name, count(),
+                percentileMicros(50) / 1000.0, percentileMicros(99) / 1000.0, maxMicros() / 1000.0);
+    }
+
+    /**
+     * Appends the non-empty buckets as "upper bound in us, count" lines.
+     * @param sb Destination.
+     */
+    void dumpBuckets(StringBuilder sb) {
+        sb.append("# ").append(describe()).append('\n');
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = counts.get(i);
+            if (c != 0) sb.append(bucketUpperBound(i)).append(',').append(c).append('\n');
+        }
+    }
+}
@@ -5,36 +5,45 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.graphics.PorterDuff;
+import android.graphics.Typeface;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 import android.widget.ImageView;
-import android.widget.ListView;
 import android.widget.ProgressBar;
+import android.widget.ScrollView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.snackbar.Snackbar;
 import com.zebra.rfid.api3.TagData;
 
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -43,14 +52,24 @@ import java.util.HashSet;
 public class MainActivity extends AppCompatActivity implements RFIDHandler.ResponseHandlerInterface {
 
     /**
-     * List of tag IDs detected by the RFID reader.
+     * Set of unique tag IDs detected by the RFID reader, packed into primitive columns.
      */
-    private final ArrayList<String> tagList = new ArrayList<>();
+    private final EpcSet tagSet = new EpcSet(1024);
 
     /**
-     * Set of unique tag IDs detected by the RFID reader.
+     * Per-tag read count, RSSI and sighting statistics, indexed by {@link #tagSet} ordinal. Guarded by {@code tagSet}.
      */
-    private final HashSet<String> tagSet = new HashSet<>();
+    private final TagStatsTable tagStats = new TagStatsTable(1024);
+
+    /**
+     * Streams {@link #tagSet} and {@link #tagStats} to CSV or JSON Lines.
+     */
+    private final SessionExporter sessionExporter = new SessionExporter(tagSet, tagStats, tagSet);
+
+    /**
+     * Expected inventory the session is reconciled against, or null. Guarded by {@code tagSet}.
+     */
+    private ExpectedManifest manifest;
 
     /**
      * Handler for RFID operations and responses.
@@ -61,11 +80,29 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
      * Request code for Bluetooth permission.
      */
     private static final int BLUETOOTH_PERMISSION_REQUEST_CODE = 100;
+    private static final int SIMULATED_READS_PER_SECOND = 2000;
+    /** Newest tag rows kept in memory; older rows are paged from the row store file. */
+    private static final int HOT_TAG_ROWS = 2048;
+    private static final String MANIFEST_FILE_NAME = "manifest.txt";
+    private static final long ASSOCIATION_WINDOW_MS = 500;
+    private static final int ASSOCIATION_MAX_TAGS = 8;
 
     // UI Components
     private TextView statusTextViewRFID;
-    private ListView tagListView;
-    private ArrayAdapter<String> tagAdapter;
+    private RecyclerView tagListView;
+    private LinearLayoutManager tagLayoutManager;
+    private TagListAdapter tagAdapter;
+
+    /**
+     * Rows collected off the UI thread and not yet shown; flushed at most once per display frame.
+     */
+    private final Object pendingLock = new Object();
+    private ArrayList<String> pendingTags = new ArrayList<>();
+    private ArrayList<String> drainedTags = new ArrayList<>();
+    private int pendingUniqueTags;
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+    private Choreographer choreographer;
+    private final Choreographer.FrameCallback tagFrameCallback = frameTimeNanos -> flushPendingTags();
     private Button btnStart;
     private Button btnStop;
     private Button btnScan;
@@ -123,9 +160,13 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
             });
         }
 
+        choreographer = Choreographer.getInstance();
         tagListView = findViewById(R.id.tag_list);
-        tagAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, tagList);
+        tagLayoutManager = new LinearLayoutManager(this);
+        tagAdapter = new TagListAdapter(new TagRowStore(new File(getCacheDir(), "tag_rows.bin"), HOT_TAG_ROWS, this::runOnUiThread));
         if (tagListView != null) {
+            tagListView.setLayoutManager(tagLayoutManager);
+            tagListView.setHasFixedSize(true);
             tagListView.setAdapter(tagAdapter);
         }
 
@@ -228,6 +269,8 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
         int id = item.getItemId();
         if (rfidHandler == null) return super.onOptionsItemSelected(item);
 
+        if (handleIngestionMenu(item)) return true;
+
         if (!checkReaderHealthy()) {
                 showSnackbar("SKIP!!!\nRFID Busy", true);
                 return false;
@@ -235,19 +278,19 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
         /////////////////////////////////////////
         if (id == R.id.trigger_rfid_rfid) {
             if (checkReaderHealthy()) {
-                rfidHandler.setTriggerEnabled(true);
+                rfidHandler.requestTriggerEnabled(true);
                 showSnackbar("RFID Triggers Enabled", true);
                 return true;
             } 
         } else if (id == R.id.trigger_barcode_barcode) {
             if (checkReaderHealthy()) {
-                rfidHandler.setTriggerEnabled(false);
+                rfidHandler.requestTriggerEnabled(false);
                 showSnackbar("Barcode Triggers Enabled", true);
                 return true;
             } 
         } else if (id == R.id.Default) {
             if (checkReaderHealthy()) {
-                rfidHandler.restoreDefaultTriggerConfig();
+                rfidHandler.requestDefaultTriggerConfig();
                 showSnackbar("Default Trigger Settings", true);
                 return true;
             } 
@@ -261,6 +304,178 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * Switches reconciliation to a newly loaded manifest, counting the tags already seen.
+     * @param loaded The manifest.
+     */
+    void onManifestLoaded(ExpectedManifest loaded) {
+        String summary;
+        synchronized (tagSet) {
+            loaded.reconcileAll(tagSet);
+            manifest = loaded;
+            summary = loaded.summary();
+        }
+        showSnackbar("Manifest loaded: " + loaded.getExpectedCount() + " EPCs\n" + summary, true);
+    }
+
+    /**
+     * Lets the user enter the EPC prefixes of the current job.
+     */
+    private void showEpcFilterDialog() {
+        EditText input = new EditText(this);
+        input.setSingleLine(true);
+        input.setHint(R.string.epc_filter_hint);
+        input.setText(rfidHandler.getEpcFilter().getSpec());
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.epc_filter)
+                .setView(input)
+                .setPositiveButton(android.R.string.ok, (dialog, which) -> {
+                    try {
+                        EpcFilter filter = EpcFilter.compile(input.getText().toString());
+                        rfidHandler.setEpcFilter(filter);
+                        showSnackbar(filter.isEmpty() ? "EPC filter off" : "EPC filter: " + filter.getSpec(), true);
+                    } catch (IllegalArgumentException e) {
+                        showSnackbar("Invalid EPC filter: " + e.getMessage(), true);
+                    }
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * Lets the user enter the inventory backend URL.
+     */
+    private void showSyncEndpointDialog() {
+        EditText input = new EditText(this);
+        input.setSingleLine(true);
+        input.setHint(R.string.sync_endpoint_default);
+        input.setText(rfidHandler.getSyncEndpoint());
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.sync_endpoint)
+                .setView(input)
+                .setPositiveButton(android.R.string.ok, (dialog, which) -> {
+                    String endpoint = input.getText().toString().trim();
+                    try {
+                        String protocol = new URL(endpoint).getProtocol();
+                        if (!protocol.equals("http") && !protocol.equals("https")) throw new MalformedURLException("not http or https");
+                        rfidHandler.setSyncEndpoint(endpoint);
+                        showSnackbar("Sync endpoint: " + endpoint, true);
+                    } catch (MalformedURLException e) {
+                        showSnackbar("Invalid sync endpoint: " + e.getMessage(), true);
+                    }
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * Shows the pipeline statistics, which run well past what a snackbar can hold, in a
+     * scrollable dialog.
+     */
+    private void showDiagnosticsDialog() {
+        int padding = Math.round(16 * getResources().getDisplayMetrics().density);
+        TextView text = new TextView(this);
+        text.setTypeface(Typeface.MONOSPACE);
+        text.setTextIsSelectable(true);
+        text.setPadding(padding, padding, padding, padding);
+        text.setText(rfidHandler.getDiagnostics());
+        ScrollView scroll = new ScrollView(this);
+        scroll.addView(text);
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.ingest_stats)
+                .setView(scroll)
+                .setPositiveButton(android.R.string.ok, null)
+                .show();
+    }
+
+    private boolean handleIngestionMenu(MenuItem item) {
+        int id = item.getItemId();
+        TagIngestor.Mode mode = null;
+        if (id == R.id.ingest_fixed) {
+            mode = TagIngestor.Mode.FIXED_PULL;
+        } else if (id == R.id.ingest_push) {
+            mode = TagIngestor.Mode.PUSH;
+        } else if (id == R.id.ingest_adaptive) {
+            mode = TagIngestor.Mode.ADAPTIVE_DRAIN;
+        } else if (id == R.id.wait_park || id == R.id.wait_yield || id == R.id.wait_spin) {
+            item.setChecked(true);
+            rfidHandler.setTagWaitStrategy(id == R.id.wait_park ? TagBatchQueue.WaitStrategy.PARK
+                    : id == R.id.wait_yield ? TagBatchQueue.WaitStrategy.YIELD : TagBatchQueue.WaitStrategy.SPIN);
+            showSnackbar(item.getTitle().toString(), true);
+            return true;
+        } else if (id == R.id.ingest_stats) {
+            showDiagnosticsDialog();
+            return true;
+        } else if (id == R.id.export_csv || id == R.id.export_jsonl) {
+            File dir = getExternalFilesDir(null);
+            rfidHandler.exportSession(sessionExporter,
+                    id == R.id.export_csv ? SessionExporter.Format.CSV : SessionExporter.Format.JSON_LINES,
+                    dir != null ? dir : getFilesDir());
+            return true;
+        } else if (id == R.id.load_manifest) {
+            File dir = getExternalFilesDir(null);
+            rfidHandler.loadManifest(new File(dir != null ? dir : getFilesDir(), MANIFEST_FILE_NAME),
+                    new File(getFilesDir(), "manifest.bin"));
+            return true;
+        } else if (id == R.id.export_reconciliation) {
+            ExpectedManifest.Snapshot snapshot;
+            ExpectedManifest current;
+            synchronized (tagSet) {
+                current = manifest;
+                snapshot = current != null ? current.snapshot() : null;
+            }
+            if (current == null) {
+                showSnackbar("No manifest loaded", true);
+            } else {
+                File dir = getExternalFilesDir(null);
+                rfidHandler.exportReconciliation(current, snapshot, dir != null ? dir : getFilesDir());
+            }
+            return true;
+        } else if (id == R.id.associate_strongest || id == R.id.associate_nearest || id == R.id.associate_off) {
+            BarcodeTagAssociator.Mode associationMode = id == R.id.associate_strongest ? BarcodeTagAssociator.Mode.STRONGEST
+                    : id == R.id.associate_nearest ? BarcodeTagAssociator.Mode.NEAREST : null;
+            rfidHandler.setBarcodeAssociation(associationMode, ASSOCIATION_WINDOW_MS, ASSOCIATION_MAX_TAGS);
+            showSnackbar(associationMode == null ? "Barcode association off"
+                    : "Barcode association: " + associationMode.name().toLowerCase(Locale.US), true);
+            return true;
+        } else if (id == R.id.connect_all_readers) {
+            rfidHandler.connectAdditionalReaders();
+            return true;
+        } else if (id == R.id.epc_filter) {
+            showEpcFilterDialog();
+            return true;
+        } else if (id == R.id.sync_backend) {
+            if (rfidHandler.isSyncing()) {
+                rfidHandler.stopSync();
+                showSnackbar("Sync stopped", true);
+            } else {
+                rfidHandler.startSync();
+            }
+            return true;
+        } else if (id == R.id.sync_endpoint) {
+            showSyncEndpointDialog();
+            return true;
+        } else if (id == R.id.dump_latency) {
+            File dir = getExternalFilesDir(null);
+            rfidHandler.dumpLatencyHistograms(dir != null ? dir : getFilesDir());
+            return true;
+        } else if (id == R.id.simulate_reader) {
+            if (rfidHandler.isSimulating()) {
+                rfidHandler.stopSimulation();
+            } else {
+                SimulatedReaderPort.Config config = new SimulatedReaderPort.Config();
+                config.readsPerSecond = SIMULATED_READS_PER_SECOND;
+                rfidHandler.startSimulation(config);
+            }
+            return true;
+        }
+        if (mode == null) return false;
+        item.setChecked(true);
+        rfidHandler.setIngestionMode(mode);
+        showSnackbar(item.getTitle().toString(), true);
+        return true;
+    }
+
     @Override
     protected void onPause() {
         super.onPause();
@@ -281,6 +496,7 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
         if (rfidHandler != null) {
             rfidHandler.onDestroy();
         }
+        if (tagAdapter != null) tagAdapter.close();
         super.onDestroy();
     }
 
@@ -316,12 +532,20 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
     }
 
     private void clearTagData() {
+        if (rfidHandler != null) rfidHandler.resetSession();
         runOnUiThread(() -> {
             if (isFinishing() || isDestroyed()) return;
-            tagSet.clear();
-            tagList.clear();
+            synchronized (tagSet) {
+                tagSet.clear();
+                tagStats.clear();
+                if (manifest != null) manifest.reset();
+            }
+            synchronized (pendingLock) {
+                pendingTags.clear();
+                pendingUniqueTags = 0;
+            }
             if (tagAdapter != null) {
-                tagAdapter.notifyDataSetChanged();
+                tagAdapter.clear();
             }
         });
     }
@@ -331,7 +555,10 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
          * Initiates barcode scanning when the scan button is pressed.
          * @param view The view that triggered this method.
          */
-        if (rfidHandler != null) rfidHandler.scanCode();
+        if (rfidHandler == null) return;
+        rfidHandler.scanCode().whenComplete((outXml, error) -> {
+            if (error != null) showSnackbar("Scan failed: " + error.getMessage(), true);
+        });
     }
 
     public void StopInventory(View view) {
@@ -349,46 +576,98 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
          * Handles new tag data received from the RFID reader.
          * @param tagData Array of TagData objects.
          */
+        addTagdata(tagData, null);
+    }
+
+    /**
+     * Adds reads recovered from the session journal.
+     * @param tagData Recovered reads.
+     * @param timestampsMs Original read time of each read.
+     */
+    public void restoreTagdata(TagData[] tagData, long[] timestampsMs) {
+        addTagdata(tagData, timestampsMs);
+    }
+
+    private void addTagdata(TagData[] tagData, long[] timestampsMs) {
         if (tagData == null || tagData.length == 0) return;
 
-        final ArrayList<String> newTags = collectNewTags(tagData);
+        final ArrayList<String> newTags;
+        final int totalUniqueTags;
+        synchronized (tagSet) {
+            newTags = collectNewTags(tagData, timestampsMs);
+            totalUniqueTags = tagSet.size();
+        }
         if (!newTags.isEmpty()) {
-            final int totalUniqueTags = tagSet.size();
-            runOnUiThread(() -> {
-                if (isFinishing() || isDestroyed()) return;
-                updateTagListUI(newTags);
-                updateStatusTextWithUniqueTags(totalUniqueTags);
-            });
+            synchronized (pendingLock) {
+                pendingTags.addAll(newTags);
+                pendingUniqueTags = totalUniqueTags;
+            }
+            if (frameScheduled.compareAndSet(false, true)) {
+                runOnUiThread(() -> choreographer.postFrameCallback(tagFrameCallback));
+            }
         }
     }
 
-    private ArrayList<String> collectNewTags(TagData[] tagData) {
+    private ArrayList<String> collectNewTags(TagData[] tagData, long[] timestampsMs) {
         ArrayList<String> newTags = new ArrayList<>();
-        for (TagData tag : tagData) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < tagData.length; i++) {
+            TagData tag = tagData[i];
             if (tag == null) continue;
             String tagId = tag.getTagID();
-            if (tagId != null && !tagSet.contains(tagId)) {
-                tagSet.add(tagId);
-                newTags.add(tagId + " (RSSI: " + tag.getPeakRSSI() + ")");
+            if (tagId == null) continue;
+            int ordinal = tagSet.add(tagId);
+            if (ordinal >= 0) {
+                newTags.add(TagRows.format(tagId, tag.getPeakRSSI()));
+                if (manifest != null) manifest.reconcile(tagId);
+            } else {
+                ordinal = -ordinal - 1;
             }
+            tagStats.record(ordinal, tag.getPeakRSSI(), tag.getAntennaID(), timestampsMs != null ? timestampsMs[i] : now);
         }
         return newTags;
     }
 
+    /**
+     * Moves all rows collected since the last frame into the adapter as one range insert.
+     */
+    private void flushPendingTags() {
+        frameScheduled.set(false);
+        if (isFinishing() || isDestroyed()) return;
+        final int totalUniqueTags;
+        synchronized (pendingLock) {
+            ArrayList<String> swap = drainedTags;
+            drainedTags = pendingTags;
+            pendingTags = swap;
+            totalUniqueTags = pendingUniqueTags;
+        }
+        if (drainedTags.isEmpty()) return;
+        updateTagListUI(drainedTags);
+        drainedTags.clear();
+        if (rfidHandler != null) rfidHandler.onTagRowsRendered();
+        String manifestSummary;
+        synchronized (tagSet) {
+            manifestSummary = manifest != null ? manifest.summary() : null;
+        }
+        updateStatusTextWithUniqueTags(totalUniqueTags, manifestSummary);
+    }
+
     private void updateTagListUI(ArrayList<String> newTags) {
-        tagList.addAll(0, newTags);
-        if (tagAdapter != null) {
-            tagAdapter.notifyDataSetChanged();
+        if (tagAdapter == null) return;
+        boolean atTop = tagLayoutManager != null && tagLayoutManager.findFirstVisibleItemPosition() <= 0;
+        tagAdapter.appendAll(newTags);
+        if (atTop && tagListView != null) {
+            tagListView.scrollToPosition(0);
         }
     }
 
-    private void updateStatusTextWithUniqueTags(int totalUniqueTags) {
+    private void updateStatusTextWithUniqueTags(int totalUniqueTags, String manifestSummary) {
         if (statusTextViewRFID != null && statusTextViewRFID.getText() != null) {
             String statusStr = statusTextViewRFID.getText().toString();
             if (statusStr.contains(getString(R.string.connected))) {
-                String[] parts = statusStr.split("\n");
-                String currentStatus = parts.length > 0 ? parts[0] : statusStr;
-                statusTextViewRFID.setText(currentStatus + "\n" + getString(R.string.unique_tags, totalUniqueTags));
+                String tagStatus = getString(R.string.unique_tags, totalUniqueTags);
+                if (manifestSummary != null) tagStatus += "\n" + manifestSummary;
+                statusTextViewRFID.setText(TagRows.withTagStatus(statusStr, tagStatus));
             }
         }
     }
@@ -421,13 +700,29 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
                 if(bTestTriggerConfig) {
                     sendToast("Restore to RFID");
                     rfidHandler.subsribeRfidTriggerEvents(true);
-                    rfidHandler.setTriggerEnabled(true);
+                    rfidHandler.requestTriggerEnabled(true);
                     bTestTriggerConfig = false;
                 }
             }
         });
     }
 
+    /**
+     * Shows the tags bound to a barcode scan under the scan result.
+     * @param association The scan and its tags, best first.
+     */
+    void onBarcodeAssociated(BarcodeTagAssociator.Association association) {
+        StringBuilder sb = new StringBuilder(getString(R.string.scan_association, association.barcode, association.epcs.length));
+        for (int i = 0; i < association.epcs.length; i++) {
+            sb.append('\n').append(association.epcs[i]).append(" (RSSI: ").append(association.rssi[i])
+                    .append(", ").append(association.offsetMs[i]).append(" ms)");
+        }
+        runOnUiThread(() -> {
+            if (isFinishing() || isDestroyed()) return;
+            if (scanResultText != null) scanResultText.setText(sb);
+        });
+    }
+
     @Override
     public void sendToast(String val) {
         /**
@@ -0,0 +1,205 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Merges the reads of several readers into one stream without cross-reader duplicates.
+ * <p>
+ * Each reader offers its batches through its own {@link Source}, which first runs them through
+ * the {@link Filter} (the EPC filter), so only matching reads ever reach the dedup state. A read
+ * passes unless a different reader already passed the same EPC within the dedup window, so a tag
+ * sitting between two dock-door readers is reported once per window rather than once per
+ * reader, while the reads of a single reader pass unchanged. Per EPC, the stream keeps the
+ * reader and time of the last read it passed in columns indexed by {@link EpcSet} ordinal, so a
+ * read of a known tag costs one allocation-free lookup.
+ * <p>
+ * While merging is off, as in a session with only the primary reader, filtered batches go
+ * straight downstream with no lock and no EPC state. Once on, the EPC state is split into
+ * {@link #STRIPES} stripes by EPC hash, each with its own lock, so readers offering at the same
+ * time rarely wait for each other.
+ * <p>
+ * Per reader it counts reads, cross-reader duplicates dropped and the tags it saw first. Batches
+ * from all readers go to one downstream sink; sources may offer concurrently, but each source
+ * from one thread at a time.
+ */
+class MergedTagStream {
+    static final int STRIPES = 16;
+
+    /**
+     * Drops reads before they are merged.
+     */
+    interface Filter {
+        /**
+         * @param batch Reads of one source; may be reordered in place.
+         * @return The reads that pass, or null if none do.
+         */
+        TagData[] apply(TagData[] batch);
+    }
+
+    private final TagIngestor.Sink downstream;
+    private final Filter filter;
+    private final long windowNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final ArrayList<Source> sources = new ArrayList<>();
+    private volatile boolean merging;
+
+    /**
+     * EPCs whose hash falls in one stripe, with the reader and time of their last passed read.
+     * Guarded by itself.
+     */
+    private static class Stripe {
+        final EpcSet epcs = new EpcSet(256);
+        short[] lastSource = new short[256];
+        long[] lastPassedNanos = new long[256];
+
+        void ensureCapacity(int ordinal) {
+            if (ordinal < lastSource.length) return;
+            int length = Math.max(ordinal + 1, lastSource.length * 2);
+            lastSource = Arrays.copyOf(lastSource, length);
+            lastPassedNanos = Arrays.copyOf(lastPassedNanos, length);
+        }
+    }
+
+    /**
+     * One reader feeding the stream.
+     */
+    class Source implements TagIngestor.Sink {
+        final String name;
+        private final short index;
+        /** Written only by the thread offering to this source. */
+        private volatile long reads;
+        private volatile long duplicates;
+        private volatile long firstSeen;
+
+        private Source(String name, short index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        @Override
+        public boolean offer(TagData[] batch) {
+            reads += batch.length;
+            TagData[] filtered = filter.apply(batch);
+            if (filtered == null) return true;
+            TagData[] merged = merging ? merge(this, filtered) : filtered;
+            return merged == null || downstream.offer(merged);
+        }
+    }
+
+    /**
+     * @param downstream Receives the merged batches.
+     * @param filter Applied to each source's batches before they are merged.
+     * @param windowMs Reads of a tag by another reader within this window are dropped.
+     */
+    MergedTagStream(TagIngestor.Sink downstream, Filter filter, long windowMs) {
+        this.downstream = downstream;
+        this.filter = filter;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Adds a reader to the stream. Sources are kept for the life of the stream so their counts
+     * survive a reconnect; register a reader once per name.
+     * @param name Reader name shown in the statistics.
+     * @return The sink the reader's ingestion writes to.
+     */
+    synchronized Source register(String name) {
+        for (Source source : sources) {
+            if (source.name.equals(name)) return source;
+        }
+        Source source = new Source(name, (short) sources.size());
+        sources.add(source);
+        return source;
+    }
+
+    /**
+     * Turns cross-reader dedup on or off; off while only one reader is connected. Tags seen
+     * while it was off are not known to the dedup state.
+     * @param merging True to drop cross-reader duplicates.
+     */
+    void setMerging(boolean merging) {
+        this.merging = merging;
+    }
+
+    /**
+     * Forgets every tag and clears the counters; called when a new session starts.
+     */
+    synchronized void reset() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.epcs.clear();
+            }
+        }
+        for (Source source : sources) {
+            source.reads = 0;
+            source.duplicates = 0;
+            source.firstSeen = 0;
+        }
+    }
+
+    /**
+     * @return Reads, duplicates dropped and first sightings per reader, with the merged total.
+     */
+    synchronized String describe() {
+        int unique = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                unique += stripe.epcs.size();
+            }
+        }
+        StringBuilder sb = new StringBuilder(String.format(Locale.US, "merged stream (%d readers, %d ms window, merging %s): %d unique tags",
+                sources.size(), TimeUnit.NANOSECONDS.toMillis(windowNanos), merging ? "on" : "off", unique));
+        for (Source source : sources) {
+            sb.append(String.format(Locale.US, "\n  %s: %d reads, %d cross-reader duplicates dropped, %d tags seen first",
+                    source.name, source.reads, source.duplicates, source.firstSeen));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The reads of the batch that pass, the batch itself if all do, or null if none do.
+     */
+    private TagData[] merge(Source source, TagData[] batch) {
+        long now = System.nanoTime();
+        int kept = 0;
+        int duplicates = 0;
+        int firstSeen = 0;
+        for (int i = 0; i < batch.length; i++) {
+            TagData tag = batch[i];
+            String epc = tag != null ? tag.getTagID() : null;
+            if (epc == null) continue;
+            int hash = epc.hashCode();
+            Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+            synchronized (stripe) {
+                int ordinal = stripe.epcs.add(epc);
+                if (ordinal >= 0) {
+                    stripe.ensureCapacity(ordinal);
+                    firstSeen++;
+                } else {
+                    ordinal = -ordinal - 1;
+                    if (stripe.lastSource[ordinal] != source.index && now - stripe.lastPassedNanos[ordinal] < windowNanos) {
+                        duplicates++;
+                        continue;
+                    }
+                }
+                stripe.lastSource[ordinal] = source.index;
+                stripe.lastPassedNanos[ordinal] = now;
+            }
+            batch[i] = batch[kept];
+            batch[kept++] = tag;
+        }
+        source.duplicates += duplicates;
+        source.firstSeen += firstSeen;
+        if (kept == batch.length) return batch;
+        return kept == 0 ? null : Arrays.copyOf(batch, kept);
+    }
+}
@@ -1,5 +1,7 @@
 package com.zebra.rfid.demo.sdksample;
 
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
@@ -13,7 +15,6 @@ import com.zebra.rfid.api3.IRFIDLogger;
 import com.zebra.rfid.api3.InvalidUsageException;
 import com.zebra.rfid.api3.OperationFailureException;
 import com.zebra.rfid.api3.RFIDReader;
-import com.zebra.rfid.api3.RFIDResults;
 import com.zebra.rfid.api3.ReaderDevice;
 import com.zebra.rfid.api3.Readers;
 import com.zebra.rfid.api3.RfidEventsListener;
@@ -27,9 +28,13 @@ import com.zebra.scannercontrol.DCSSDKDefs;
 import com.zebra.scannercontrol.DCSScannerInfo;
 import com.zebra.scannercontrol.SDKHandler;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.ArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
 
@@ -47,15 +52,20 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     private RFIDReader reader;
     private EventHandler eventHandler;
     private MainActivity context;
-    private SDKHandler sdkHandler;
+    /**
+     * Scanner SDK handler; created and released on the scanner lane and used by commands on the
+     * scanner command thread. Released and used for commands only under {@link #scannerSdkLock}.
+     */
+    private volatile SDKHandler sdkHandler;
+    private final Object scannerSdkLock = new Object();
     private ScannerHandler scannerHandler;
     private ArrayList<DCSScannerInfo> scannerList;
-    private int scannerID;
+    private volatile int scannerID;
     private static final int MAX_POWER = 270;
     private static final String READER_NAME = "RFD4031-G10B700-WR";
     private final Handler uiHandler = new Handler(Looper.getMainLooper());
     private int connectionTimer = 0;
-    private volatile boolean bRfidBusy = false;
+    private static final long IDLE_WAIT_MS = 2000;
     private final Runnable timerRunnable = new Runnable() {
         @Override
         public void run() {
@@ -65,13 +75,129 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
             }
         }
     };
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /**
+     * Control, configuration and scanner work each run on their own lane.
+     */
+    private final ExecutionLanes lanes = new ExecutionLanes();
+
+    /**
+     * Scanner SDK commands, sent in order on the queue's own thread.
+     */
+    private final ScannerCommandQueue scannerCommands = new ScannerCommandQueue(this::sendScannerCommand);
+    private static final long SCANNER_COMMAND_TIMEOUT_MS = 3000;
+
+    /**
+     * Bounded hand-off for tag batches between the SDK read callback and the UI consumer.
+     */
+    private final TagBatchQueue tagQueue = new TagBatchQueue(TAG_QUEUE_CAPACITY, TagBatchQueue.WaitStrategy.PARK);
+    private static final int TAG_QUEUE_CAPACITY = 256;
+
+    /**
+     * Reads of the primary reader and the reader group, merged without cross-reader duplicates.
+     */
+    private final MergedTagStream mergedStream = new MergedTagStream(tagQueue::offer, batch -> this.epcFilter.apply(batch), CROSS_READER_WINDOW_MS);
+    private static final long CROSS_READER_WINDOW_MS = 500;
+    private final MergedTagStream.Source primarySource = mergedStream.register("primary");
+
+    /**
+     * Pulls or receives tags from the reader according to the selected ingestion mode.
+     */
+    private final TagIngestor tagIngestor = new TagIngestor(primarySource);
+
+    /**
+     * Readers connected alongside the primary reader, feeding the same session.
+     */
+    private final ReaderGroup readerGroup = new ReaderGroup(mergedStream);
+    private static final int MAX_READERS = 3;
+    private static final long GROUP_CONNECT_TIMEOUT_MS = 15000;
+
+    /**
+     * Concurrent multi-transport reader discovery.
+     */
+    private ReaderDiscovery readerDiscovery;
+
+    /**
+     * Last successfully connected reader, used for the fast reconnect path.
+     */
+    private ReaderSessionStore sessionStore;
+    private ENUM_TRANSPORT activeTransport;
+
+    /**
+     * Per-phase timing of the last connection attempts.
+     */
+    private final ConnectionTimeline connectTimeline = new ConnectionTimeline();
     
     /**
      * Lock to synchronize access to trigger configuration and other shared resources.
      */
     private final ReentrantLock resourceLock = new ReentrantLock();
 
+    /**
+     * Inventory busy/idle state, signaled from {@link EventHandler#eventStatusNotify}.
+     */
+    private final ReaderStateMonitor stateMonitor = new ReaderStateMonitor(lanes.executor(ExecutionLanes.Lane.CONFIG));
+    private volatile long lastTriggerSwitchMs = -1;
+
+    /**
+     * Known keylayout and handheld-event state of the connected reader; invalidated on disconnect.
+     */
+    private final ReaderConfigCache configCache = new ReaderConfigCache();
+
+    /**
+     * Simulated reader feeding the tag pipeline instead of the API3 reader, or null.
+     */
+    private volatile SimulatedReaderPort simulatedPort;
+
+    /**
+     * Reader that inventory requests go to: the simulated reader while simulating, otherwise the
+     * connected API3 reader, or null.
+     */
+    private volatile ReaderPort port;
+
+    /**
+     * Trigger-to-first-row latency per inventory stage.
+     */
+    private final TriggerLatencyTracker latencyTracker = new TriggerLatencyTracker();
+
+    /**
+     * Crash-safe record of every read in the current session, appended on the tag consumer thread.
+     */
+    private SessionJournal journal;
+    private static final long JOURNAL_SYNC_INTERVAL_MS = 1000;
+    private final AtomicBoolean journalSyncPending = new AtomicBoolean();
+    private volatile long lastJournalSyncMs;
+
+    /**
+     * Delta upload of the session to the inventory backend, or null while sync is off.
+     */
+    private volatile InventoryUploader uploader;
+    private static final int SYNC_WINDOW = 4;
+    /** Backend URL that sync uploads to; the built-in default until the user sets one. */
+    private volatile String syncEndpoint;
+    private SharedPreferences syncPrefs;
+    private static final String SYNC_PREFS_NAME = "sync";
+    private static final String KEY_SYNC_ENDPOINT = "endpoint";
+
+    /**
+     * EPC prefix filter of the current job, applied on the reader and before dedup.
+     */
+    private volatile EpcFilter epcFilter = EpcFilter.compile("");
+    /** Filter last pushed to the primary reader on this connection; null if not yet pushed. */
+    private volatile EpcFilter readerFilter;
+    private SharedPreferences filterPrefs;
+    private static final String FILTER_PREFS_NAME = "epc_filter";
+    private static final String KEY_FILTER_SPEC = "spec";
+
+    /**
+     * Binds barcode scans to the tags read around them while enabled.
+     */
+    private final BarcodeTagAssociator associator = new BarcodeTagAssociator(this::onAssociation);
+
+    /**
+     * Decodes and de-duplicates scans and hands them to the association and the UI in batches.
+     */
+    private final BarcodePipeline barcodePipeline = new BarcodePipeline();
+
     /**
      * Initializes the handler and SDK with the provided activity context.
      * @param activity The MainActivity context for UI and resource access.
@@ -79,7 +205,30 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     void onCreate(MainActivity activity) {
         context = activity;
         scannerList = new ArrayList<>();
-        scannerHandler = new ScannerHandler(activity);
+        barcodePipeline.addConsumer(Runnable::run, this::onBarcodesScanned);
+        barcodePipeline.addConsumer(uiHandler::post, this::showBarcodes);
+        scannerHandler = new ScannerHandler(activity, barcodePipeline);
+        readerDiscovery = new ReaderDiscovery(activity, list -> selectReaderFromList(list) != null);
+        sessionStore = new ReaderSessionStore(activity, READER_NAME + "|" + com.zebra.rfid.api3.BuildConfig.VERSION_NAME);
+        filterPrefs = activity.getSharedPreferences(FILTER_PREFS_NAME, Context.MODE_PRIVATE);
+        try {
+            epcFilter = EpcFilter.compile(filterPrefs.getString(KEY_FILTER_SPEC, ""));
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Ignoring stored EPC filter", e);
+        }
+        syncPrefs = activity.getSharedPreferences(SYNC_PREFS_NAME, Context.MODE_PRIVATE);
+        syncEndpoint = syncPrefs.getString(KEY_SYNC_ENDPOINT, activity.getString(R.string.sync_endpoint_default));
+        journal = new SessionJournal(new File(activity.getFilesDir(), "session.journal"));
+        lanes.execute(ExecutionLanes.Lane.IO, this::openJournal);
+        tagQueue.start(batch -> {
+            associator.onTags(batch);
+            journal.append(batch);
+            scheduleJournalSync();
+            InventoryUploader activeUploader = uploader;
+            if (activeUploader != null) activeUploader.offer(batch);
+            MainActivity activityContext = context;
+            if (activityContext != null) activityContext.handleTagdata(batch);
+        });
         initSdk();
     }
 
@@ -113,6 +262,10 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
             singulationControl.Action.setInventoryState(INVENTORY_STATE.INVENTORY_STATE_A);
             singulationControl.Action.setSLFlag(SL_FLAG.SL_ALL);
             reader.Config.Antennas.setSingulationControl(1, singulationControl);
+            // SL_ALL drops a filter that ran on the reader; push it again.
+            readerFilter = null;
+            epcFilter.markOffReader();
+            applyEpcFilterToReader();
         } catch (InvalidUsageException | OperationFailureException e) {
             Log.e(TAG, "Error in Defaults", e);
             return e.getMessage();
@@ -133,7 +286,7 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
      */
     public void toggleConnection() {
         if (isReaderConnected()) {
-            executor.execute(this::disconnect);
+            lanes.execute(ExecutionLanes.Lane.CONTROL, this::disconnect);
         } else {
             connectReader();
         }
@@ -143,8 +296,17 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
      * Handles resume event for the activity, reconnecting the reader if needed.
      */
     void onResume() {
-        executor.execute(() -> {
-            String result = connect();
+        lanes.execute(ExecutionLanes.Lane.CONTROL, () -> {
+            String result;
+            if (reader == null && sessionStore != null && sessionStore.getHostName() != null) {
+                result = connectViaFastPath();
+                if (result == null) {
+                    findAndHandleAvailableReaders();
+                    return;
+                }
+            } else {
+                result = connect();
+            }
             if (context != null) {
                 context.updateReaderStatus(result, isReaderConnected());
             }
@@ -155,36 +317,107 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
      * Handles pause event for the activity, disconnecting the reader.
      */
     void onPause() {
-        executor.execute(this::disconnect);
+        lanes.execute(ExecutionLanes.Lane.CONTROL, () -> {
+            endSimulation();
+            disconnect();
+        });
     }
 
     /**
      * Handles destroy event for the activity, disposing resources and shutting down executors.
      */
     void onDestroy() {
-        executor.execute(() -> {
+        tagQueue.stop();
+        stopSync();
+        // A finishing activity ends the session; one destroyed to be recreated keeps it for replay.
+        boolean sessionEnded = context == null || context.isFinishing();
+        lanes.execute(ExecutionLanes.Lane.IO, () -> journal.close(sessionEnded));
+        lanes.execute(ExecutionLanes.Lane.CONTROL, () -> {
             dispose();
+            if (readerDiscovery != null) readerDiscovery.shutdown();
             context = null;
         });
-        executor.shutdown();
+        scannerCommands.shutdown();
+        lanes.shutdown();
     }
 
     private void initSdk() {
         Log.d(TAG, "initSdk");
         if (readers == null) {
-            executor.execute(this::findAndHandleAvailableReaders);
+            lanes.execute(ExecutionLanes.Lane.CONTROL, () -> {
+                String result = connectViaFastPath();
+                if (result == null) {
+                    findAndHandleAvailableReaders();
+                } else if (context != null) {
+                    context.updateReaderStatus(result, isReaderConnected());
+                }
+            });
         } else {
             connectReader();
         }
     }
 
+    /**
+     * Connects directly to the last known reader by enumerating only its persisted transport.
+     * @return The connection status, or null if there is no usable entry or the connect failed.
+     */
+    private synchronized String connectViaFastPath() {
+        if (sessionStore == null || context == null) return null;
+        ENUM_TRANSPORT transport = sessionStore.getTransport();
+        String hostName = sessionStore.getHostName();
+        if (transport == null || hostName == null) return null;
+        connectTimeline.begin("fast " + transport.name());
+        long start = System.currentTimeMillis();
+        try {
+            ReaderDiscovery.Result probe = readerDiscovery.probe(transport);
+            if (probe != null) {
+                readers = probe.readers;
+                for (ReaderDevice device : probe.devices) {
+                    if (device != null && hostName.equals(device.getName())) {
+                        availableRFIDReaderList = new ArrayList<>(probe.devices);
+                        reader = device.getRFIDReader();
+                        break;
+                    }
+                }
+            }
+        } catch (InvalidUsageException e) {
+            Log.e(TAG, "Fast path enumeration failed", e);
+        }
+        connectTimeline.record(ConnectionTimeline.Phase.DISCOVERY, start);
+        String result = null;
+        if (reader != null) {
+            activeTransport = transport;
+            Readers.attach(this);
+            result = connect();
+        }
+        if (isReaderConnected()) {
+            Log.d(TAG, "ECRT: Fast path connect to " + hostName + " over " + transport.name() + " in " + (System.currentTimeMillis() - start) + " ms");
+            return result;
+        }
+        connectTimeline.finish(false);
+        Log.d(TAG, "ECRT: Fast path to " + hostName + " failed after " + (System.currentTimeMillis() - start) + " ms, falling back to discovery");
+        sessionStore.clear();
+        reader = null;
+        return null;
+    }
+
+    /**
+     * @return Phase breakdown of the last connect with median and maximum per phase.
+     */
+    String getConnectTimings() {
+        return connectTimeline.describe();
+    }
+
     private void findAndHandleAvailableReaders() {
+        connectTimeline.begin("discovery");
+        long start = System.currentTimeMillis();
         InvalidUsageException exception = null;
         try {
             availableRFIDReaderList = findAvailableReadersAcrossTransports();
         } catch (InvalidUsageException e) {
             exception = e;
         }
+        connectTimeline.record(ConnectionTimeline.Phase.DISCOVERY, start);
         if (context != null) {
             final InvalidUsageException finalException = exception;
             context.runOnUiThread(() -> handleAvailableReadersResult(finalException));
@@ -204,44 +437,35 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     }
 
     private ArrayList<ReaderDevice> findAvailableReadersAcrossTransports() throws InvalidUsageException {
-        ENUM_TRANSPORT[] transports = {
-                ENUM_TRANSPORT.SERVICE_USB,
-                ENUM_TRANSPORT.RE_SERIAL,
-                ENUM_TRANSPORT.RE_USB,
-                ENUM_TRANSPORT.BLUETOOTH,
-                ENUM_TRANSPORT.ALL
-        };
-        ArrayList<ReaderDevice> foundReaders = new ArrayList<>();
-        for (int i = 0; i < transports.length; i++) {
-            ENUM_TRANSPORT transport = transports[i];
-            if (i == 0) {
-                readers = new Readers(context, transport);
-            } else {
-                readers.setTransport(transport);
-            }
-            Log.d(TAG, "ECRT: #" + (i + 1) + " Getting Available Readers in " + transport.name());
-            ArrayList<ReaderDevice> list = readers.GetAvailableRFIDReaderList();
-            if (list != null && !list.isEmpty()) {
-                foundReaders = new ArrayList<>(list);
-                break;
-            }
-        }
-        return foundReaders;
+        if (readerDiscovery == null) return new ArrayList<>();
+        ReaderDiscovery.Result result = readerDiscovery.discover();
+        if (result == null) return new ArrayList<>();
+        Log.d(TAG, "ECRT: Readers found in " + result.transport.name());
+        readers = result.readers;
+        activeTransport = result.transport;
+        return result.devices;
+    }
+
+    /**
+     * @return Per-transport status and timing of the last reader discovery.
+     */
+    String getDiscoveryTimings() {
+        return readerDiscovery != null ? readerDiscovery.describeTimings() : "";
     }
 
     private void handleReaderInitializationFailure(String toastMessage, String statusMessage) {
+        connectTimeline.finish(false);
         if (context != null) {
             context.sendToast(toastMessage);
             context.updateReaderStatus(statusMessage, false);
         }
-        if (readers != null) {
-            readers.Dispose();
-            readers = null;
-        }
+        // Discovery owns the instance and disposes it; dropping the reference makes the next
+        // attempt probe again.
+        readers = null;
     }
 
     private void connectReader() {
-        executor.execute(() -> {
+        lanes.execute(ExecutionLanes.Lane.CONTROL, () -> {
             if (context != null) {
                 context.updateReaderStatus(context.getString(R.string.connecting) + "...", false);
             }
@@ -253,7 +477,10 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
 
     private void handleConnectionStatus() {
         if (!isReaderConnected()) {
+            connectTimeline.beginIfIdle("reconnect");
+            long start = System.currentTimeMillis();
             getAvailableReader();
+            connectTimeline.record(ConnectionTimeline.Phase.REENUMERATION, start);
             String result = getConnectionResultString();
             if (context != null) {
                 context.updateReaderStatus(result, isReaderConnected());
@@ -268,7 +495,9 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     private String getConnectionResultString() {
         if (reader != null) {
             return connect();
-        } else if (context != null) {
+        }
+        connectTimeline.finish(false);
+        if (context != null) {
             return context.getString(R.string.failed_to_find_reader);
         } else {
             return "Failed to find reader";
@@ -279,9 +508,9 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         if (readers != null) {
             Readers.attach(this);
             try {
-                ArrayList<ReaderDevice> availableReaders = readers.GetAvailableRFIDReaderList();
-                if (availableReaders != null && !availableReaders.isEmpty()) {
-                    availableRFIDReaderList = new ArrayList<>(availableReaders);
+                ReaderDiscovery.Result rescan = readerDiscovery.rescan();
+                if (rescan != null) {
+                    availableRFIDReaderList = new ArrayList<>(rescan.devices);
                     reader = selectReaderFromList(availableRFIDReaderList);
                 }
             } catch (InvalidUsageException e) {
@@ -312,25 +541,30 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         if (context != null && readerDevice != null) context.sendToast(context.getString(R.string.rfid_reader_disappeared, readerDevice.getName()));
         synchronized (RFIDHandler.this) {
             if (reader != null && readerDevice != null && readerDevice.getName().equals(reader.getHostName())) {
-                executor.execute(this::disconnect);
+                lanes.execute(ExecutionLanes.Lane.CONTROL, this::disconnect);
             }
         }
     }
 
     private synchronized String connect() {
         if (reader == null) {
+            connectTimeline.finish(false);
             return context != null ? context.getString(R.string.disconnected) : "Disconnected";
         }
         try {
             if (!reader.isConnected()) {
                 return connectAndConfigureReader();
             } else {
+                if (port == null) port = new Api3ReaderPort(reader);
+                connectTimeline.finish(true);
                 return getConnectedStatus();
             }
         } catch (InvalidUsageException e) {
+            connectTimeline.finish(false);
             Log.e(TAG, CONNECTION_FAILED, e);
             return context != null ? context.getString(R.string.connection_failed, e.getMessage()) : CONNECTION_FAILED;
         } catch (OperationFailureException e) {
+            connectTimeline.finish(false);
             Log.e(TAG, CONNECTION_FAILED, e);
             return context != null ? context.getString(R.string.connection_failed, e.getStatusDescription()) : CONNECTION_FAILED;
         }
@@ -338,19 +572,25 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
 
     private String connectAndConfigureReader() throws InvalidUsageException, OperationFailureException {
         connectionTimer = 0;
-        bRfidBusy = false;
+        stateMonitor.markIdle();
         uiHandler.post(timerRunnable);
+        connectTimeline.beginIfIdle("reconnect");
         long startTime = System.currentTimeMillis();
         try {
             reader.connect();
         } finally {
             uiHandler.removeCallbacks(timerRunnable);
+            connectTimeline.record(ConnectionTimeline.Phase.TRANSPORT_CONNECT, startTime);
         }
         long duration = System.currentTimeMillis() - startTime;
         configureReader();
         if (reader.isConnected()) {
+            port = new Api3ReaderPort(reader);
+            if (sessionStore != null) sessionStore.save(activeTransport, reader.getHostName());
+            Log.d(TAG, "ECRT: Connect sequence finished in " + connectTimeline.finish(true) + " ms");
             return context != null ? context.getString(R.string.connected) + ": " + reader.getHostName() + " (" + duration + " ms)" : "Connected";
         }
+        connectTimeline.finish(false);
         return context != null ? context.getString(R.string.disconnected) : "Disconnected";
     }
 
@@ -361,18 +601,27 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     private void configureReader() {
         if (reader != null && reader.isConnected()) {
             IRFIDLogger.getLogger("SDKSampleApp").EnableDebugLogs(true);
+            long phaseStart = System.currentTimeMillis();
             try {
                 if (eventHandler == null) eventHandler = new EventHandler();
                 reader.Events.addEventsListener(eventHandler);
-                reader.Events.setHandheldEvent(true);
+                configCache.invalidate();
+                configCache.applyHandheldEvent(reader, true);
                 reader.Events.setTagReadEvent(true);
-                reader.Events.setAttachTagDataWithReadEvent(false);
+                reader.Events.setAttachTagDataWithReadEvent(tagIngestor.attachTagData());
                 reader.Events.setReaderDisconnectEvent(true);
                 reader.Events.setInventoryStartEvent(true);
                 reader.Events.setInventoryStopEvent(true);
                 reader.Events.setOperationEndSummaryEvent(true);
-                setupScannerSdk();
+                connectTimeline.record(ConnectionTimeline.Phase.EVENT_SUBSCRIPTION, phaseStart);
+                phaseStart = System.currentTimeMillis();
+                readerFilter = null;
+                applyEpcFilterToReader();
+                connectTimeline.record(ConnectionTimeline.Phase.EPC_FILTER, phaseStart);
+                lanes.execute(ExecutionLanes.Lane.SCANNER, this::setupScannerSdk);
+                phaseStart = System.currentTimeMillis();
                 restoreDefaultTriggerConfig();
+                connectTimeline.record(ConnectionTimeline.Phase.TRIGGER_RESTORE, phaseStart);
             } catch (InvalidUsageException | OperationFailureException e) {
                 Log.e(TAG, "Configuration failed", e);
             }
@@ -382,7 +631,7 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
 
     public void subsribeRfidTriggerEvents(boolean bRfidHardwareTriggerEvent){
         if(reader != null && reader.isConnected()) {
-            reader.Events.setHandheldEvent(bRfidHardwareTriggerEvent);
+            configCache.applyHandheldEvent(reader, bRfidHardwareTriggerEvent);
         }
     }
 
@@ -390,30 +639,12 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         resourceLock.lock();
         try {
             if (reader == null || !reader.isConnected()) return false;
-            // Wait for reader to become idle
-            for (int i = 0; i < 10; i++) {
-                if (!bRfidBusy) break;
-                try {
-                    Thread.sleep(200);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return false;
-                }
-            }
+            if (!waitForReaderIdle()) return false;
             try {
-                Log.v(TAG, "### Before Restore...");
-                reader.Config.getKeylayoutType();
-                ENUM_NEW_KEYLAYOUT_TYPE upperTriggerValue = reader.Config.getUpperTriggerValue();
-                ENUM_NEW_KEYLAYOUT_TYPE lowerTriggerValue = reader.Config.getLowerTriggerValue();
-                Log.v(TAG, "### upper=" + upperTriggerValue.name() + ", lower=" + lowerTriggerValue);
-                /// /////////////////////////////////////////////////////////////////////////////////
-                RFIDResults result = reader.Config.setKeylayoutType(ENUM_NEW_KEYLAYOUT_TYPE.RFID, ENUM_NEW_KEYLAYOUT_TYPE.SLED_SCAN);
-
-                ENUM_NEW_KEYLAYOUT_TYPE upperTriggerValue2 = reader.Config.getUpperTriggerValue();
-                ENUM_NEW_KEYLAYOUT_TYPE lowerTriggerValue2 = reader.Config.getLowerTriggerValue();
-                Log.v(TAG, "### After Restore...");
-                Log.v(TAG, "### upper=" + upperTriggerValue2.name() + ", lower=" + lowerTriggerValue2);
-                return true;
+                Log.v(TAG, "### Before Restore: upper=" + configCache.getUpper() + ", lower=" + configCache.getLower());
+                boolean restored = configCache.applyKeylayout(reader, ENUM_NEW_KEYLAYOUT_TYPE.RFID, ENUM_NEW_KEYLAYOUT_TYPE.SLED_SCAN);
+                Log.v(TAG, "### After Restore: upper=" + configCache.getUpper() + ", lower=" + configCache.getLower());
+                return restored;
             } catch (InvalidUsageException | OperationFailureException e) {
                 Log.e(TAG, "Exception in setTriggerEnabled", e);
             }
@@ -423,31 +654,98 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         }
     }
 
+    /**
+     * Blocks until the reader leaves inventory, for at most {@link #IDLE_WAIT_MS}.
+     * @return False if the thread was interrupted; a timeout is logged and treated as idle.
+     */
+    private boolean waitForReaderIdle() {
+        try {
+            if (!stateMonitor.awaitIdle(IDLE_WAIT_MS)) {
+                Log.w(TAG, "Reader still busy after " + IDLE_WAIT_MS + " ms, applying configuration anyway");
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Queues a trigger mode change that runs in the background as soon as the reader is idle.
+     * @param isRfidEnabled True for RFID triggers, false for barcode triggers.
+     */
+    void requestTriggerEnabled(boolean isRfidEnabled) {
+        stateMonitor.runWhenIdle(() -> setTriggerEnabled(isRfidEnabled));
+    }
+
+    /**
+     * Queues a restore of the default trigger configuration once the reader is idle.
+     */
+    void requestDefaultTriggerConfig() {
+        stateMonitor.runWhenIdle(this::restoreDefaultTriggerConfig);
+    }
+
+    /**
+     * Switches to a new EPC filter, persists it for the next start, and pushes it to the reader
+     * once the reader is idle.
+     * @param filter Compiled filter; an empty filter passes every tag.
+     */
+    void setEpcFilter(EpcFilter filter) {
+        epcFilter = filter;
+        if (filterPrefs != null) filterPrefs.edit().putString(KEY_FILTER_SPEC, filter.getSpec()).apply();
+        stateMonitor.runWhenIdle(this::applyEpcFilterToReader);
+    }
+
+    /**
+     * @return The current EPC filter.
+     */
+    EpcFilter getEpcFilter() {
+        return epcFilter;
+    }
+
+    private void applyEpcFilterToReader() {
+        EpcFilter filter = epcFilter;
+        resourceLock.lock();
+        try {
+            if (reader == null || !reader.isConnected()) return;
+            if (filter != readerFilter) {
+                boolean onReader = filter.applyToReader(reader);
+                readerFilter = filter;
+                Log.d(TAG, "EPC filter [" + filter.getSpec() + "] " + (onReader ? "pushed to reader" : "on host only"));
+            }
+            readerGroup.configureAll((groupReader, ingestor) -> filter.applyToReader(groupReader));
+        } catch (InvalidUsageException | OperationFailureException e) {
+            Log.e(TAG, "Error applying pre-filters, filtering on host only", e);
+        } finally {
+            resourceLock.unlock();
+        }
+    }
+
+    /**
+     * @return Idle-to-switch latency and duration of the last keylayout write.
+     */
+    String getTriggerSwitchStats() {
+        return stateMonitor.describeSwitchLatency() + ", last keylayout write: " + lastTriggerSwitchMs + " ms, " + configCache.describe();
+    }
+
     public boolean setTriggerEnabled(boolean isRfidEnabled) {
         resourceLock.lock();
         try {
             if (reader == null || !reader.isConnected()) return false;
-            // Wait for reader to become idle
-            for (int i = 0; i < 10; i++) {
-                if (!bRfidBusy) break;
-                try {
-                    Thread.sleep(200);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return false;
-                }
-            }
+            if (!waitForReaderIdle()) return false;
             ENUM_NEW_KEYLAYOUT_TYPE mode = isRfidEnabled ? ENUM_NEW_KEYLAYOUT_TYPE.RFID : ENUM_NEW_KEYLAYOUT_TYPE.SLED_SCAN;
             try {
                 Log.v(TAG, "### before setTriggerEnabled: rfid=" + isRfidEnabled);
-                RFIDResults result = reader.Config.setKeylayoutType(mode, mode);
-                Log.v(TAG, "### after setTriggerEnabled: rfid=" + isRfidEnabled);
-                if (result == RFIDResults.RFID_API_SUCCESS) {
+                long start = System.currentTimeMillis();
+                boolean applied = configCache.applyKeylayout(reader, mode, mode);
+                lastTriggerSwitchMs = System.currentTimeMillis() - start;
+                Log.v(TAG, "### after setTriggerEnabled: rfid=" + isRfidEnabled + " in " + lastTriggerSwitchMs + " ms");
+                if (applied) {
                     Log.d(TAG, "Trigger configuration success: " + mode.name());
 
                     return true;
                 } else {
-                    Log.e(TAG, "Trigger configuration failed: " + result.toString());
+                    Log.e(TAG, "Trigger configuration failed: " + mode.name());
                 }
             } catch (InvalidUsageException | OperationFailureException e) {
                 Log.e(TAG, "Exception in setTriggerEnabled", e);
@@ -458,25 +756,36 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         }
     }
 
-    public void setupScannerSdk() {
+    /**
+     * Brings up the scanner SDK and the session to the connected reader's scanner. Runs on the
+     * scanner lane in parallel with the RFID configuration; the scan button is enabled by the
+     * session-established event once it completes.
+     */
+    private void setupScannerSdk() {
         if (context == null) return;
+        long phaseStart = System.currentTimeMillis();
         initializeSdkHandlerIfNeeded();
         refreshScannerList();
+        connectTimeline.record(ConnectionTimeline.Phase.SCANNER_SDK_INIT, phaseStart);
+        phaseStart = System.currentTimeMillis();
         establishScannerSessionIfNeeded();
+        connectTimeline.record(ConnectionTimeline.Phase.SCANNER_SESSION, phaseStart);
     }
 
     private void initializeSdkHandlerIfNeeded() {
         if (sdkHandler == null) {
-            sdkHandler = new SDKHandler(context);
-            sdkHandler.dcssdkSetOperationalMode(DCSSDKDefs.DCSSDK_MODE.DCSSDK_OPMODE_USB_CDC);
-            sdkHandler.dcssdkSetOperationalMode(DCSSDKDefs.DCSSDK_MODE.DCSSDK_OPMODE_BT_NORMAL);
-            sdkHandler.dcssdkSetDelegate(scannerHandler);
+            SDKHandler handler = new SDKHandler(context);
+            handler.dcssdkSetOperationalMode(DCSSDKDefs.DCSSDK_MODE.DCSSDK_OPMODE_USB_CDC);
+            handler.dcssdkSetOperationalMode(DCSSDKDefs.DCSSDK_MODE.DCSSDK_OPMODE_BT_NORMAL);
+            handler.dcssdkSetDelegate(scannerHandler);
             int notificationsMask = DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SCANNER_APPEARANCE.value |
                     DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SCANNER_DISAPPEARANCE.value |
                     DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_BARCODE.value |
                     DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SESSION_ESTABLISHMENT.value |
                     DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SESSION_TERMINATION.value;
-            sdkHandler.dcssdkSubsribeForEvents(notificationsMask);
+            handler.dcssdkSubsribeForEvents(notificationsMask);
+            // Published only once configured, so a command never sees a half set-up handler.
+            sdkHandler = handler;
         }
     }
 
@@ -493,8 +802,9 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     }
 
     private void establishScannerSessionIfNeeded() {
-        if (reader != null && reader.isConnected()) {
-            String hostName = reader.getHostName();
+        RFIDReader localReader = reader;
+        if (localReader != null && localReader.isConnected()) {
+            String hostName = localReader.getHostName();
             for (DCSScannerInfo device : scannerList) {
                 if (device != null && device.getScannerName() != null && hostName != null && device.getScannerName().contains(hostName)) {
                     try {
@@ -509,80 +819,496 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     }
 
     private synchronized void disconnect() {
+        readerGroup.disconnectAll();
+        stateMonitor.reset();
         try {
             if (reader != null) {
+                if (port instanceof Api3ReaderPort) port = null;
                 if (eventHandler != null) reader.Events.removeEventsListener(eventHandler);
-                if (sdkHandler != null) {
-                    sdkHandler.dcssdkTerminateCommunicationSession(scannerID);
-                }
+                if (!lanes.execute(ExecutionLanes.Lane.SCANNER, this::releaseScannerSdk)) releaseScannerSdk();
                 reader.disconnect();
                 if (context != null)
                     context.updateReaderStatus(context.getString(R.string.disconnected), false);
                 reader.Dispose();
                 reader = null;
-                sdkHandler = null;
             }
+            configCache.invalidate();
         } catch (Exception e) {
             Log.e(TAG, "Error during disconnect", e);
         }
     }
 
-    private synchronized void dispose() {
-        disconnect();
-        try {
-            if (readers != null) {
-                readers.Dispose();
-                readers = null;
+    /**
+     * Ends the scanner session and drops the SDK handler. Queued on the scanner lane behind any
+     * bring-up still in progress, or run inline once the lanes are shut down. Queued scanner
+     * commands fail first, and a command already on the wire finishes before the session ends.
+     */
+    private void releaseScannerSdk() {
+        scannerCommands.cancelPending("Scanner session ended");
+        synchronized (scannerSdkLock) {
+            SDKHandler handler = sdkHandler;
+            if (handler == null) return;
+            sdkHandler = null;
+            try {
+                handler.dcssdkTerminateCommunicationSession(scannerID);
+            } catch (Exception e) {
+                Log.e(TAG, "Error terminating scanner session", e);
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error during dispose", e);
         }
     }
 
+    private synchronized void dispose() {
+        disconnect();
+        readers = null;
+        if (readerDiscovery != null) readerDiscovery.disposeReaders();
+    }
+
     /**
      * Starts RFID inventory operation if the reader is not busy.
      */
     synchronized void performInventory() {
-        if(bRfidBusy) {
+        if(stateMonitor.isBusy()) {
             Log.d(TAG, "RFID is busy, inventory request ignored.\r\n Abort!!!!");
             stopInventory();
             return;
         }
-        try {
-            if (reader != null && reader.isConnected()) reader.Actions.Inventory.perform();
-        } catch (InvalidUsageException | OperationFailureException e) {
-            Log.e(TAG, "Error performing inventory", e);
-        }
+        latencyTracker.markPerform();
+        readerGroup.startInventory();
+        ReaderPort current = port;
+        if (current != null) current.startInventory();
     }
 
     /**
      * Stops RFID inventory operation if the reader is connected.
      */
     synchronized void stopInventory() {
+        readerGroup.stopInventory();
+        ReaderPort current = port;
+        if (current != null) current.stopInventory();
+    }
+
+    /**
+     * Connects the other available readers, up to {@link #MAX_READERS} in all, in parallel. Their
+     * reads join the session alongside the primary reader's and follow its trigger.
+     */
+    void connectAdditionalReaders() {
+        lanes.execute(ExecutionLanes.Lane.CONTROL, () -> {
+            RFIDReader primary = reader;
+            if (readers == null || primary == null || !primary.isConnected()) {
+                if (context != null) context.showSnackbar("Connect a reader first", true);
+                return;
+            }
+            ArrayList<RFIDReader> candidates = new ArrayList<>();
+            try {
+                ReaderDiscovery.Result rescan = readerDiscovery.rescan();
+                for (ReaderDevice device : rescan != null ? rescan.devices : new ArrayList<ReaderDevice>()) {
+                    if (1 + readerGroup.size() + candidates.size() >= MAX_READERS) break;
+                    if (device == null || device.getName() == null || device.getRFIDReader() == null) continue;
+                    if (device.getName().equals(primary.getHostName()) || readerGroup.contains(device.getName())) continue;
+                    candidates.add(device.getRFIDReader());
+                }
+            } catch (InvalidUsageException e) {
+                Log.e(TAG, "Error getting available readers", e);
+            }
+            if (candidates.isEmpty()) {
+                if (context != null) context.showSnackbar("No other readers available", true);
+                return;
+            }
+            // Connects on the readers' own lanes; CONTROL stays free for disconnects meanwhile.
+            readerGroup.connect(candidates, tagIngestor.getMode(), this::configureGroupReader, GROUP_CONNECT_TIMEOUT_MS,
+                    (joined, timedOut) -> {
+                        MainActivity activity = context;
+                        if (activity != null) {
+                            activity.showSnackbar((joined + 1) + " readers in session" + (timedOut ? ", others timed out" : ""), true);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Subscribes a group reader to tag and disconnect events and applies the EPC filter; runs on
+     * that reader's lane.
+     */
+    private void configureGroupReader(RFIDReader groupReader, TagIngestor ingestor) throws InvalidUsageException, OperationFailureException {
+        groupReader.Events.setTagReadEvent(true);
+        groupReader.Events.setAttachTagDataWithReadEvent(ingestor.attachTagData());
+        groupReader.Events.setReaderDisconnectEvent(true);
+        epcFilter.applyToReader(groupReader);
+    }
+
+    /**
+     * Pulls the scanner trigger. A pull still queued behind another command absorbs repeats.
+     * @return Completes when the scanner has accepted the pull, or fails on error or timeout.
+     */
+    public CompletableFuture<String> scanCode() {
+        return scannerCommands.submit(DCSSDKDefs.DCSSDK_COMMAND_OPCODE.DCSSDK_DEVICE_PULL_TRIGGER, scannerID, SCANNER_COMMAND_TIMEOUT_MS);
+    }
+
+    /**
+     * Runs on the scanner command thread. Holds the SDK lock for the call, so the session cannot
+     * be released on the scanner lane while the command is on the wire.
+     */
+    private DCSSDKDefs.DCSSDK_RESULT sendScannerCommand(DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode, String inXml, StringBuilder outXml, int id) {
+        synchronized (scannerSdkLock) {
+            SDKHandler handler = sdkHandler;
+            if (handler == null) return DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_SCANNER_NOT_AVAILABLE;
+            return handler.dcssdkExecuteCommandOpCodeInXMLForScanner(opCode, inXml, outXml, id);
+        }
+    }
+
+    public boolean isbRfidBusy() {
+        return stateMonitor.isBusy();
+    }
+
+    /**
+     * Selects how the tag consumer thread waits when no batches are pending.
+     * @param strategy Spin, yield or park.
+     */
+    void setTagWaitStrategy(TagBatchQueue.WaitStrategy strategy) {
+        tagQueue.setWaitStrategy(strategy);
+    }
+
+    /**
+     * Switches between fixed pull, attached-data push and adaptive drain ingestion.
+     * @param mode The ingestion mode to use from the next read event.
+     */
+    void setIngestionMode(TagIngestor.Mode mode) {
+        lanes.execute(ExecutionLanes.Lane.CONFIG, () -> {
+            tagIngestor.setMode(mode);
+            RFIDReader localReader = reader;
+            if (localReader != null && localReader.isConnected()) {
+                try {
+                    localReader.Events.setAttachTagDataWithReadEvent(tagIngestor.attachTagData());
+                } catch (Exception e) {
+                    Log.e(TAG, "Error applying ingestion mode " + mode, e);
+                }
+            }
+            readerGroup.configureAll((groupReader, ingestor) -> {
+                ingestor.setMode(mode);
+                groupReader.Events.setAttachTagDataWithReadEvent(ingestor.attachTagData());
+            });
+        });
+    }
+
+    /**
+     * @return Throughput and read callback time per ingestion mode.
+     */
+    String getIngestionStats() {
+        return tagIngestor.describeStats();
+    }
+
+    /**
+     * Collects the pipeline diagnostics shown from the stats menu.
+     * @return Ingestion, trigger switch, connect and discovery figures, one group per line.
+     */
+    String getDiagnostics() {
+        StringBuilder sb = new StringBuilder();
+        String ingestion = getIngestionStats();
+        if (!ingestion.isEmpty()) sb.append(ingestion.trim()).append('\n');
+        sb.append("tag queue depth=").append(getTagQueueDepth()).append(" dropped=").append(getDroppedTagBatches()).append('\n');
+        sb.append(latencyTracker.describe()).append('\n');
+        sb.append(getTriggerSwitchStats()).append('\n');
+        sb.append(getConnectTimings()).append('\n');
+        sb.append(lanes.describe()).append('\n');
+        if (journal != null) sb.append(journal.describe()).append('\n');
+        sb.append(epcFilter.describe()).append('\n');
+        sb.append(barcodePipeline.describe()).append('\n');
+        sb.append(scannerCommands.describe()).append('\n');
+        if (associator.isEnabled()) sb.append(associator.describe()).append('\n');
+        InventoryUploader activeUploader = uploader;
+        if (activeUploader != null) sb.append(activeUploader.describe()).append('\n');
+        SimulatedReaderPort simulated = simulatedPort;
+        if (simulated != null) sb.append(simulated.describe()).append('\n');
+        if (readerGroup.size() > 0) {
+            sb.append(readerGroup.describe()).append('\n');
+            sb.append(mergedStream.describe()).append('\n');
+        }
+        sb.append(getDiscoveryTimings());
+        return sb.toString();
+    }
+
+    /**
+     * Replaces the API3 reader with a simulated tag stream until {@link #stopSimulation()}.
+     * @param config Simulated population, read rate and event schedule.
+     */
+    void startSimulation(SimulatedReaderPort.Config config) {
+        lanes.execute(ExecutionLanes.Lane.CONTROL, () -> {
+            endSimulation();
+            disconnect();
+            SimulatedReaderPort simulated = new SimulatedReaderPort("SIM-" + READER_NAME, config);
+            simulated.setListener(new PortEvents() {
+                @Override
+                public void onDisconnected() {
+                    lanes.execute(ExecutionLanes.Lane.CONTROL, RFIDHandler.this::endSimulation);
+                }
+            });
+            simulated.connect();
+            simulatedPort = simulated;
+            port = simulated;
+            stateMonitor.markIdle();
+            if (context != null) context.updateReaderStatus(context.getString(R.string.connected) + ": " + simulated.getHostName(), true);
+        });
+    }
+
+    /**
+     * Stops the simulated reader started by {@link #startSimulation}.
+     */
+    void stopSimulation() {
+        lanes.execute(ExecutionLanes.Lane.CONTROL, this::endSimulation);
+    }
+
+    /**
+     * @return True while a simulated reader replaces the API3 reader.
+     */
+    boolean isSimulating() {
+        return simulatedPort != null;
+    }
+
+    private synchronized void endSimulation() {
+        SimulatedReaderPort simulated = simulatedPort;
+        if (simulated == null) return;
+        simulated.stopInventory();
+        simulatedPort = null;
+        port = null;
+        simulated.disconnect();
+        Log.d(TAG, simulated.describe());
+        stateMonitor.reset();
+        if (context != null) context.updateReaderStatus(context.getString(R.string.disconnected), false);
+    }
+
+    /**
+     * Opens the session journal and restores an interrupted session into the UI with the
+     * original read times.
+     */
+    private void openJournal() {
         try {
-            if (reader != null && reader.isConnected()) reader.Actions.Inventory.stop();
-        } catch (InvalidUsageException | OperationFailureException e) {
-            Log.e(TAG, "Error stopping inventory", e);
-            Log.e(TAG, CONNECTION_FAILED, e);
+            journal.open();
+        } catch (IOException e) {
+            Log.e(TAG, "Session journal unavailable", e);
+            return;
+        }
+        journal.replay((batch, timestampsMs) -> {
+            MainActivity activityContext = context;
+            if (activityContext != null) activityContext.restoreTagdata(batch, timestampsMs);
+        });
+    }
+
+    private void scheduleJournalSync() {
+        long now = System.currentTimeMillis();
+        if (now - lastJournalSyncMs < JOURNAL_SYNC_INTERVAL_MS || !journalSyncPending.compareAndSet(false, true)) return;
+        lanes.execute(ExecutionLanes.Lane.IO, () -> {
+            journal.sync();
+            lastJournalSyncMs = System.currentTimeMillis();
+            journalSyncPending.set(false);
+        });
+    }
+
+    /**
+     * Streams the session aggregates to a file on the IO lane and reports the result.
+     * @param exporter Exporter over the UI's tag tables.
+     * @param format Output format.
+     * @param dir Output directory.
+     */
+    void exportSession(SessionExporter exporter, SessionExporter.Format format, File dir) {
+        lanes.execute(ExecutionLanes.Lane.IO, () -> {
+            long start = System.currentTimeMillis();
+            try {
+                File file = exporter.export(dir, format);
+                Log.d(TAG, "Exported " + file + " in " + (System.currentTimeMillis() - start) + " ms");
+                if (context != null) context.showSnackbar("Exported to " + file.getAbsolutePath(), true);
+            } catch (IOException e) {
+                Log.e(TAG, "Error exporting session", e);
+                if (context != null) context.showSnackbar("Export failed: " + e.getMessage(), true);
+            }
+        });
+    }
+
+    /**
+     * Loads an expected-inventory manifest on the IO lane and hands it to the UI.
+     * @param source Manifest text file.
+     * @param cache Compiled form of the manifest, reused while the source is unchanged.
+     */
+    void loadManifest(File source, File cache) {
+        lanes.execute(ExecutionLanes.Lane.IO, () -> {
+            try {
+                ExpectedManifest manifest = ExpectedManifest.load(source, cache);
+                if (context != null) context.onManifestLoaded(manifest);
+            } catch (IOException e) {
+                Log.e(TAG, "Error loading manifest " + source, e);
+                if (context != null) context.showSnackbar("Manifest load failed: " + e.getMessage(), true);
+            }
+        });
+    }
+
+    /**
+     * Writes the missing and unexpected EPCs of a reconciliation on the IO lane.
+     * @param manifest The loaded manifest.
+     * @param snapshot Its found state, taken under the UI's tag lock.
+     * @param dir Output directory.
+     */
+    void exportReconciliation(ExpectedManifest manifest, ExpectedManifest.Snapshot snapshot, File dir) {
+        lanes.execute(ExecutionLanes.Lane.IO, () -> {
+            try {
+                File file = manifest.writeDiscrepancies(snapshot, dir);
+                if (context != null) context.showSnackbar("Reconciliation written to " + file.getAbsolutePath(), true);
+            } catch (IOException e) {
+                Log.e(TAG, "Error writing reconciliation", e);
+                if (context != null) context.showSnackbar("Reconciliation export failed: " + e.getMessage(), true);
+            }
+        });
+    }
+
+    /**
+     * Turns barcode-to-tag association on with the given window, or off.
+     * @param mode Ranking of the tags in the window, or null to turn association off.
+     * @param windowMs Reads this long before or after a scan are considered.
+     * @param maxTags Most tags bound to one scan.
+     */
+    void setBarcodeAssociation(BarcodeTagAssociator.Mode mode, long windowMs, int maxTags) {
+        if (mode != null) associator.configure(mode, windowMs, windowMs, maxTags);
+        associator.setEnabled(mode != null);
+    }
+
+    private void onBarcodesScanned(ArrayList<BarcodePipeline.Scan> scans) {
+        if (!associator.isEnabled()) return;
+        for (BarcodePipeline.Scan scan : scans) {
+            associator.onBarcode(scan.text, scan.decodedNanos);
+        }
+        // Resolves the scan if no tag batch arrives after its window to do it.
+        uiHandler.postDelayed(() -> lanes.execute(ExecutionLanes.Lane.IO, associator::resolveDue), associator.getAfterMs() + 1);
+    }
+
+    /**
+     * Shows the latest scan of a batch; runs on the UI thread.
+     */
+    private void showBarcodes(ArrayList<BarcodePipeline.Scan> scans) {
+        MainActivity activityContext = context;
+        if (activityContext == null) return;
+        activityContext.barcodeData(scans.get(scans.size() - 1).text);
+        for (BarcodePipeline.Scan scan : scans) {
+            barcodePipeline.markDelivered(scan);
         }
     }
 
+    private void onAssociation(BarcodeTagAssociator.Association association) {
+        Log.d(TAG, "Barcode " + association.barcode + " bound to " + association.epcs.length + " tags");
+        MainActivity activityContext = context;
+        if (activityContext != null) activityContext.onBarcodeAssociated(association);
+    }
+
     /**
-     * Initiates a scan code operation using the scanner SDK.
+     * Starts a new journal and sync session; called when the UI clears its tag data.
      */
-    public void scanCode() {
-        String inXml = "<inArgs><scannerID>" + scannerID + "</scannerID></inArgs>";
-        executor.execute(() -> executeCommand(DCSSDKDefs.DCSSDK_COMMAND_OPCODE.DCSSDK_DEVICE_PULL_TRIGGER, inXml, scannerID));
+    void resetSession() {
+        if (journal != null) journal.reset();
+        mergedStream.reset();
+        InventoryUploader activeUploader = uploader;
+        if (activeUploader != null) activeUploader.newSession();
     }
 
-    private void executeCommand(DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode, String inXML, int scannerID) {
-        if (sdkHandler != null) {
-            sdkHandler.dcssdkExecuteCommandOpCodeInXMLForScanner(opCode, inXML, new StringBuilder(), scannerID);
+    /**
+     * Switches sync to a new backend URL and persists it for the next start. A running sync is
+     * restarted against the new URL; batches already spooled are sent there too.
+     * @param endpoint Backend URL.
+     */
+    void setSyncEndpoint(String endpoint) {
+        syncEndpoint = endpoint;
+        if (syncPrefs != null) syncPrefs.edit().putString(KEY_SYNC_ENDPOINT, endpoint).apply();
+        if (isSyncing()) {
+            stopSync();
+            startSync();
         }
     }
 
-    public boolean isbRfidBusy() {
-        return bRfidBusy;
+    /**
+     * @return The backend URL that sync uploads to.
+     */
+    String getSyncEndpoint() {
+        return syncEndpoint;
+    }
+
+    /**
+     * Starts uploading reads to the inventory backend, resuming batches left by an earlier run.
+     */
+    void startSync() {
+        String endpoint = syncEndpoint;
+        if (context == null || endpoint == null || uploader != null) return;
+        InventoryUploader newUploader;
+        try {
+            newUploader = new InventoryUploader(new URL(endpoint), new File(context.getFilesDir(), "sync_spool"), SYNC_WINDOW);
+        } catch (MalformedURLException e) {
+            Log.e(TAG, "Invalid sync endpoint " + endpoint, e);
+            context.showSnackbar("Invalid sync endpoint: " + endpoint, true);
+            return;
+        }
+        // Claimed before the spool is loaded, so a second tap finds it and does not start another.
+        uploader = newUploader;
+        lanes.execute(ExecutionLanes.Lane.IO, () -> {
+            try {
+                newUploader.start();
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error starting sync", e);
+                newUploader.stop();
+                if (uploader == newUploader) uploader = null;
+                if (context != null) context.showSnackbar("Sync failed: " + e.getMessage(), true);
+                return;
+            }
+            if (context != null) context.showSnackbar("Sync to " + endpoint + " started", true);
+        });
+    }
+
+    /**
+     * Stops uploading; reads not yet acknowledged stay spooled for the next {@link #startSync}.
+     */
+    void stopSync() {
+        InventoryUploader activeUploader = uploader;
+        if (activeUploader == null) return;
+        uploader = null;
+        lanes.execute(ExecutionLanes.Lane.IO, activeUploader::stop);
+    }
+
+    /**
+     * @return True while reads are uploaded.
+     */
+    boolean isSyncing() {
+        return uploader != null;
+    }
+
+    /**
+     * Called by the UI after new tag rows were handed to the list.
+     */
+    void onTagRowsRendered() {
+        latencyTracker.markRowsRendered();
+    }
+
+    /**
+     * Writes the trigger latency histograms to a file in the background and reports the path.
+     * @param dir Directory for the dump.
+     */
+    void dumpLatencyHistograms(File dir) {
+        lanes.execute(ExecutionLanes.Lane.IO, () -> {
+            try {
+                File file = latencyTracker.dump(dir);
+                if (context != null) context.showSnackbar("Latency written to " + file.getAbsolutePath(), true);
+            } catch (IOException e) {
+                Log.e(TAG, "Error writing latency histograms", e);
+                if (context != null) context.showSnackbar("Latency dump failed: " + e.getMessage(), true);
+            }
+        });
+    }
+
+    /**
+     * @return Tag batches waiting for the consumer thread.
+     */
+    int getTagQueueDepth() {
+        return tagQueue.depth();
+    }
+
+    /**
+     * @return Tag batches dropped because the queue was full.
+     */
+    long getDroppedTagBatches() {
+        return tagQueue.droppedCount();
     }
 
     /**
@@ -593,13 +1319,9 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         public void eventReadNotify(RfidReadEvents e) {
             RFIDReader localReader = reader;
             if (localReader == null) return;
+            latencyTracker.markRead();
             try {
-                TagData[] myTags = localReader.Actions.getReadTags(100);
-                if (myTags != null && context != null) {
-                    executor.execute(() -> {
-                        if (context != null) context.handleTagdata(myTags);
-                    });
-                }
+                if (context != null) tagIngestor.onReadEvent(localReader, e);
             } catch (Exception ex) {
                 Log.e(TAG, "Error in eventReadNotify", ex);
             }
@@ -612,41 +1334,14 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
             if (eventType == STATUS_EVENT_TYPE.HANDHELD_TRIGGER_EVENT) {
                 if (rfidStatusEvents.StatusEventData.HandheldTriggerEventData != null) {
                     HANDHELD_TRIGGER_EVENT_TYPE triggerEvent = rfidStatusEvents.StatusEventData.HandheldTriggerEventData.getHandheldEvent();
-                    final boolean pressed = (triggerEvent == HANDHELD_TRIGGER_EVENT_TYPE.HANDHELD_TRIGGER_PRESSED);
-                    if(pressed ){
-                        if(bRfidBusy) {
-                            executor.execute(() -> {
-                            if (context != null) context.showSnackbar("BUSY: duplicated trigger!!!!", true);
-                            Log.d(TAG, "BUSY: duplicated trigger!!!! and ABORT inventory!!!");
-                            stopInventory();
-                            return;
-                            });
-                        } else {
-                            Log.d(TAG, "Trigger pulled - pressed, attempting to start inventory....");
-                            //performInventory();
-                            context.handleTriggerPress(true);
-                        }
-                    } else {
-                        //stopInventory();
-                        context.handleTriggerPress(false);
-                        Log.d(TAG, "Trigger released, attempting to stop inventory....");
-                    }
+                    portEvents.onTrigger(triggerEvent == HANDHELD_TRIGGER_EVENT_TYPE.HANDHELD_TRIGGER_PRESSED);
                 }
             } else if (eventType == STATUS_EVENT_TYPE.DISCONNECTION_EVENT) {
-                executor.execute(() -> {
-                    disconnect();
-                    dispose();
-                });
+                portEvents.onDisconnected();
             } else if (eventType == STATUS_EVENT_TYPE.INVENTORY_START_EVENT) {
-                bRfidBusy = true;
-                if (context != null) context.dismissToast();
+                portEvents.onInventoryStarted();
             } else if (eventType == STATUS_EVENT_TYPE.INVENTORY_STOP_EVENT) {
-                bRfidBusy = false;
-                if(context != null && context.getTestStatus()) {
-                    context.dismissToast();
-                    context.showSnackbar("Pull Trigger: \r\nScan Barcode", false);
-                    testBarcode();
-                }
+                portEvents.onInventoryStopped();
             } else if (eventType == STATUS_EVENT_TYPE.OPERATION_END_SUMMARY_EVENT) {
                 Log.d(TAG, "Operation End Summary Event");
             }
@@ -656,10 +1351,71 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         }
     }
 
+    /**
+     * Reader events shared by the API3 {@link EventHandler} and {@link SimulatedReaderPort}.
+     */
+    private class PortEvents implements ReaderPort.Listener {
+        @Override
+        public void onTags(TagData[] batch) {
+            latencyTracker.markRead();
+            primarySource.offer(batch);
+        }
+
+        @Override
+        public void onTrigger(boolean pressed) {
+            if(pressed ){
+                if(stateMonitor.isBusy()) {
+                    lanes.execute(ExecutionLanes.Lane.CONTROL, () -> {
+                    if (context != null) context.showSnackbar("BUSY: duplicated trigger!!!!", true);
+                    Log.d(TAG, "BUSY: duplicated trigger!!!! and ABORT inventory!!!");
+                    stopInventory();
+                    return;
+                    });
+                } else {
+                    latencyTracker.markTrigger();
+                    Log.d(TAG, "Trigger pulled - pressed, attempting to start inventory....");
+                    //performInventory();
+                    if (context != null) context.handleTriggerPress(true);
+                }
+            } else {
+                //stopInventory();
+                if (context != null) context.handleTriggerPress(false);
+                Log.d(TAG, "Trigger released, attempting to stop inventory....");
+            }
+        }
+
+        @Override
+        public void onInventoryStarted() {
+            latencyTracker.markInventoryStarted();
+            stateMonitor.markBusy();
+            if (context != null) context.dismissToast();
+        }
+
+        @Override
+        public void onInventoryStopped() {
+            stateMonitor.markIdle();
+            if(context != null && context.getTestStatus()) {
+                context.dismissToast();
+                context.showSnackbar("Pull Trigger: \r\nScan Barcode", false);
+                testBarcode();
+            }
+        }
+
+        @Override
+        public void onDisconnected() {
+            lanes.execute(ExecutionLanes.Lane.CONTROL, () -> {
+                disconnect();
+                dispose();
+            });
+        }
+    }
+
+    private final ReaderPort.Listener portEvents = new PortEvents();
+
     void testBarcode(){
         if (context != null) {
             subsribeRfidTriggerEvents(false);
-            setTriggerEnabled(false);
+            requestTriggerEnabled(false);
         }
     }
 
@@ -0,0 +1,103 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.ENUM_NEW_KEYLAYOUT_TYPE;
+import com.zebra.rfid.api3.InvalidUsageException;
+import com.zebra.rfid.api3.OperationFailureException;
+import com.zebra.rfid.api3.RFIDReader;
+import com.zebra.rfid.api3.RFIDResults;
+
+import java.util.Locale;
+
+
+/**
+ * Remembers the keylayout (upper/lower trigger) and handheld event settings last written to the
+ * connected reader, and skips Config round trips that would not change anything.
+ * <p>
+ * While the state is unknown (after connect or {@link #invalidate()}) a write goes straight to the
+ * reader: one write is cheaper than the two reads needed to compare first. Once a write succeeds
+ * the state is known and identical requests return without touching the reader. Call
+ * {@link #invalidate()} on disconnect or whenever the reader may have been reconfigured elsewhere.
+ */
+class ReaderConfigCache {
+    private ENUM_NEW_KEYLAYOUT_TYPE upper;
+    private ENUM_NEW_KEYLAYOUT_TYPE lower;
+    private Boolean handheldEvents;
+
+    private long writes;
+    private long skipped;
+    private long failures;
+
+    /**
+     * Sets the trigger keylayout unless the reader is already known to have it.
+     * @param reader Connected reader.
+     * @param upperTrigger Target for the upper trigger.
+     * @param lowerTrigger Target for the lower trigger.
+     * @return True if the reader has the requested layout afterwards.
+     * @throws InvalidUsageException On SDK usage errors.
+     * @throws OperationFailureException If the reader rejects the command.
+     */
+    synchronized boolean applyKeylayout(RFIDReader reader, ENUM_NEW_KEYLAYOUT_TYPE upperTrigger, ENUM_NEW_KEYLAYOUT_TYPE lowerTrigger)
+            throws InvalidUsageException, OperationFailureException {
+        if (upperTrigger == upper && lowerTrigger == lower) {
+            skipped++;
+            return true;
+        }
+        upper = null;
+        lower = null;
+        RFIDResults result = reader.Config.setKeylayoutType(upperTrigger, lowerTrigger);
+        writes++;
+        if (result != RFIDResults.RFID_API_SUCCESS) {
+            failures++;
+            return false;
+        }
+        upper = upperTrigger;
+        lower = lowerTrigger;
+        return true;
+    }
+
+    /**
+     * Subscribes or unsubscribes handheld trigger events unless already in that state.
+     * @param reader Connected reader.
+     * @param enabled Target subscription state.
+     */
+    synchronized void applyHandheldEvent(RFIDReader reader, boolean enabled) {
+        if (handheldEvents != null && handheldEvents == enabled) {
+            skipped++;
+            return;
+        }
+        handheldEvents = null;
+        reader.Events.setHandheldEvent(enabled);
+        writes++;
+        handheldEvents = enabled;
+    }
+
+    /**
+     * @return The keylayout last written successfully, or null if unknown.
+     */
+    synchronized ENUM_NEW_KEYLAYOUT_TYPE getUpper() {
+        return upper;
+    }
+
+    /**
+     * @return The lower trigger layout last written successfully, or null if unknown.
+     */
+    synchronized ENUM_NEW_KEYLAYOUT_TYPE getLower() {
+        return lower;
+    }
+
+    /**
+     * Forgets the cached reader state.
+     */
+    synchronized void invalidate() {
+        upper = null;
+        lower = null;
+        handheldEvents = null;
+    }
+
+    /**
+     * @return Counts of writes sent, redundant requests skipped and failed writes.
+     */
+    synchronized String describe() {
+        return String.format(Locale.US, "config cache: %d writes, %d skipped, %d failed", writes, skipped, failures);
+    }
+}
@@ -0,0 +1,323 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.zebra.rfid.api3.ENUM_TRANSPORT;
+import com.zebra.rfid.api3.InvalidUsageException;
+import com.zebra.rfid.api3.ReaderDevice;
+import com.zebra.rfid.api3.Readers;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+
+/**
+ * Probes the reader transports in priority order and returns the first acceptable result.
+ * <p>
+ * The API3 {@code Readers} constructor, {@code setTransport} and {@code Dispose} all work on
+ * process-wide static state (selected transport, reader singleton, event handler registry and
+ * the transport wrapper), so two instances, or two enumerations on one instance, must never be
+ * in use at the same time. Discovery therefore owns the app's single {@link Readers} instance and
+ * makes every call on it from one probe thread, one transport at a time. A result is accepted as soon as the caller's predicate (normally "the handler would
+ * pick a reader from this list") matches; otherwise the non-empty list from the highest priority
+ * transport is returned. Per-transport timing is kept for the last run.
+ * <p>
+ * Each transport has an expected duration. An enumeration that takes longer cannot be
+ * interrupted, and a slow Bluetooth sled or a cold USB enumeration may still find the reader, so
+ * the probe is logged and marked late but its outcome is still awaited and used; later
+ * transports are probed after it returns, never concurrently with it.
+ */
+class ReaderDiscovery {
+    private static final String TAG = "ReaderDiscovery";
+
+    /** Transports in priority order. */
+    static final ENUM_TRANSPORT[] TRANSPORTS = {
+            ENUM_TRANSPORT.SERVICE_USB,
+            ENUM_TRANSPORT.RE_SERIAL,
+            ENUM_TRANSPORT.RE_USB,
+            ENUM_TRANSPORT.BLUETOOTH,
+            ENUM_TRANSPORT.ALL
+    };
+    private static final long DEFAULT_TIMEOUT_MS = 2000;
+    private static final long BLUETOOTH_TIMEOUT_MS = 6000;
+    private static final long ALL_TIMEOUT_MS = 8000;
+
+    /**
+     * Outcome of a single transport probe.
+     */
+    enum ProbeStatus { PENDING, FOUND, EMPTY, ERROR, SKIPPED }
+
+    /**
+     * Winning transport, the shared {@link Readers} instance set to it and the devices it reported.
+     */
+    static class Result {
+        final ENUM_TRANSPORT transport;
+        final Readers readers;
+        final ArrayList<ReaderDevice> devices;
+
+        Result(ENUM_TRANSPORT transport, Readers readers, ArrayList<ReaderDevice> devices) {
+            this.transport = transport;
+            this.readers = readers;
+            this.devices = devices;
+        }
+    }
+
+    private static class Probe {
+        final ENUM_TRANSPORT transport;
+        final long timeoutMs;
+        volatile Readers readers;
+        volatile ArrayList<ReaderDevice> devices;
+        volatile InvalidUsageException error;
+        volatile ProbeStatus status = ProbeStatus.PENDING;
+        volatile long durationMs;
+        /** True if the enumeration ran past its expected duration. */
+        volatile boolean late;
+
+        Probe(ENUM_TRANSPORT transport, long timeoutMs) {
+            this.transport = transport;
+            this.timeoutMs = timeoutMs;
+        }
+
+        /**
+         * Publishes the probe outcome once.
+         */
+        synchronized void complete(ProbeStatus outcome, long elapsedMs) {
+            if (status != ProbeStatus.PENDING) return;
+            status = outcome;
+            durationMs = elapsedMs;
+        }
+    }
+
+    private final Context context;
+    private final Predicate<ArrayList<ReaderDevice>> acceptable;
+    private final ExecutorService probeThread = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "ReaderProbe"));
+    /** The app's only {@link Readers} instance; created, used and disposed on the probe thread only. */
+    private Readers readers;
+    /** Transport the shared instance is set to, or null before the first probe. */
+    private volatile ENUM_TRANSPORT currentTransport;
+    private volatile Probe[] lastProbes = new Probe[0];
+    private volatile long lastTotalMs;
+
+    /**
+     * @param context Context for the {@link Readers} instance.
+     * @param acceptable Returns true when a device list is good enough to stop probing.
+     */
+    ReaderDiscovery(Context context, Predicate<ArrayList<ReaderDevice>> acceptable) {
+        this.context = context;
+        this.acceptable = acceptable;
+    }
+
+    /**
+     * Runs one discovery pass.
+     * @return The winning result, or null if no transport reported a reader.
+     * @throws InvalidUsageException If nothing was found and at least one probe failed.
+     */
+    Result discover() throws InvalidUsageException {
+        long start = System.currentTimeMillis();
+        Probe[] probes = new Probe[TRANSPORTS.length];
+        for (int i = 0; i < TRANSPORTS.length; i++) {
+            probes[i] = new Probe(TRANSPORTS[i], timeoutFor(TRANSPORTS[i]));
+        }
+        lastProbes = probes;
+
+        Probe winner = null;
+        Probe last = null;
+        try {
+            for (Probe probe : probes) {
+                last = probe;
+                run(probe);
+                if (probe.status == ProbeStatus.FOUND && acceptable.test(probe.devices)) {
+                    winner = probe;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Probe probe : probes) {
+            if (probe.status == ProbeStatus.PENDING) probe.status = ProbeStatus.SKIPPED;
+        }
+        if (winner == null) winner = firstFound(probes);
+        if (winner != null && winner != last && !reapplyTransport(winner.transport)) winner = null;
+        lastTotalMs = System.currentTimeMillis() - start;
+        Log.d(TAG, describeTimings());
+
+        if (winner != null) return new Result(winner.transport, winner.readers, winner.devices);
+        for (Probe probe : probes) {
+            if (probe.error != null) throw probe.error;
+        }
+        return null;
+    }
+
+    /**
+     * Enumerates a single transport, e.g. the last known one on the fast reconnect path, and
+     * leaves the shared instance set to it.
+     * @param transport Transport to enumerate.
+     * @return The devices found, or null if none were found.
+     * @throws InvalidUsageException If the SDK rejected the enumeration.
+     */
+    Result probe(ENUM_TRANSPORT transport) throws InvalidUsageException {
+        Probe probe = new Probe(transport, timeoutFor(transport));
+        try {
+            run(probe);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (probe.error != null) throw probe.error;
+        return probe.status == ProbeStatus.FOUND ? new Result(transport, probe.readers, probe.devices) : null;
+    }
+
+    /**
+     * Enumerates again on the transport the shared instance is set to, e.g. when a reader
+     * appears after discovery.
+     * @return The devices found, or null if none were found or nothing has been probed yet.
+     * @throws InvalidUsageException If the SDK rejected the enumeration.
+     */
+    Result rescan() throws InvalidUsageException {
+        ENUM_TRANSPORT transport = currentTransport;
+        return transport != null ? probe(transport) : null;
+    }
+
+    /**
+     * Runs a probe on the probe thread and waits for its outcome. A probe still running after
+     * its expected duration is marked late and waited for, since it may yet find the reader.
+     */
+    private void run(Probe probe) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        Future<?> future;
+        try {
+            future = probeThread.submit(() -> enumerate(probe));
+        } catch (RejectedExecutionException e) {
+            probe.complete(ProbeStatus.SKIPPED, 0);
+            return;
+        }
+        try {
+            try {
+                future.get(probe.timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                probe.late = true;
+                Log.w(TAG, "Probe of " + probe.transport.name() + " still running after " + probe.timeoutMs + " ms, waiting for it");
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Probe failed for " + probe.transport.name(), e.getCause());
+            probe.complete(ProbeStatus.ERROR, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Probe thread only.
+     */
+    private void enumerate(Probe probe) {
+        long start = System.currentTimeMillis();
+        ProbeStatus outcome;
+        try {
+            if (readers == null) {
+                readers = new Readers(context, probe.transport);
+            } else {
+                readers.setTransport(probe.transport);
+            }
+            currentTransport = probe.transport;
+            probe.readers = readers;
+            ArrayList<ReaderDevice> list = readers.GetAvailableRFIDReaderList();
+            if (list != null && !list.isEmpty()) {
+                probe.devices = new ArrayList<>(list);
+                outcome = ProbeStatus.FOUND;
+            } else {
+                outcome = ProbeStatus.EMPTY;
+            }
+        } catch (InvalidUsageException e) {
+            probe.error = e;
+            outcome = ProbeStatus.ERROR;
+        } catch (Exception e) {
+            Log.e(TAG, "Probe failed for " + probe.transport.name(), e);
+            outcome = ProbeStatus.ERROR;
+        }
+        probe.complete(outcome, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Sets the shared instance back to the winner's transport after later probes changed it.
+     * @return False if the transport could not be re-applied in time.
+     */
+    private boolean reapplyTransport(ENUM_TRANSPORT transport) {
+        try {
+            probeThread.submit(() -> {
+                readers.setTransport(transport);
+                currentTransport = transport;
+            }).get(ALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            Log.w(TAG, "Could not switch back to " + transport.name(), e);
+        }
+        return false;
+    }
+
+    private static Probe firstFound(Probe[] probes) {
+        for (Probe probe : probes) {
+            if (probe.status == ProbeStatus.FOUND) return probe;
+        }
+        return null;
+    }
+
+    private static long timeoutFor(ENUM_TRANSPORT transport) {
+        if (transport == ENUM_TRANSPORT.BLUETOOTH) return BLUETOOTH_TIMEOUT_MS;
+        if (transport == ENUM_TRANSPORT.ALL) return ALL_TIMEOUT_MS;
+        return DEFAULT_TIMEOUT_MS;
+    }
+
+    /**
+     * @return Status, duration and device count per transport for the last discovery pass.
+     */
+    String describeTimings() {
+        StringBuilder sb = new StringBuilder("Discovery ").append(lastTotalMs).append(" ms:");
+        for (Probe probe : lastProbes) {
+            ArrayList<ReaderDevice> devices = probe.devices;
+            sb.append(String.format(Locale.US, " %s=%s%s/%dms/%d", probe.transport.name(), probe.status.name(),
+                    probe.late ? "(late)" : "", probe.durationMs, devices != null ? devices.size() : 0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Disposes the shared {@link Readers} instance once no probe is using it. The next probe
+     * creates a new one.
+     */
+    void disposeReaders() {
+        try {
+            probeThread.submit(() -> {
+                if (readers == null) return;
+                try {
+                    readers.Dispose();
+                } catch (Exception e) {
+                    Log.w(TAG, "Error disposing readers", e);
+                }
+                readers = null;
+                currentTransport = null;
+            }).get(ALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            Log.w(TAG, "Readers not disposed", e);
+        }
+    }
+
+    /**
+     * Stops the probe thread once queued work has run.
+     */
+    void shutdown() {
+        probeThread.shutdown();
+    }
+}
@@ -0,0 +1,368 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.Process;
+import android.util.Log;
+
+import com.zebra.rfid.api3.InvalidUsageException;
+import com.zebra.rfid.api3.OperationFailureException;
+import com.zebra.rfid.api3.RFIDReader;
+import com.zebra.rfid.api3.RfidEventsListener;
+import com.zebra.rfid.api3.RfidReadEvents;
+import com.zebra.rfid.api3.RfidStatusEvents;
+import com.zebra.rfid.api3.STATUS_EVENT_TYPE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Readers connected alongside the handler's primary reader, e.g. the other sleds at a dock door.
+ * <p>
+ * Each reader gets its own event lane: a single worker thread that connects and configures it,
+ * starts and stops its inventory and runs its tag ingestion, so a slow pull or a stalled link on
+ * one reader never delays the others. Readers are connected in parallel without blocking the
+ * caller. Every reader has its own {@link TagIngestor} writing to its own
+ * {@link MergedTagStream.Source}, so reads of all readers meet in one deduplicated stream with
+ * per-reader counts; the stream merges only while the group has readers.
+ * <p>
+ * Trigger and keylayout settings stay with the primary reader; the group follows the primary's
+ * inventory start and stop. A reader that reports a disconnect leaves the group.
+ */
+class ReaderGroup {
+    private static final String TAG = "ReaderGroup";
+
+    /**
+     * Applies the session's reader settings, such as event subscriptions and pre-filters.
+     */
+    interface Configurator {
+        void configure(RFIDReader reader, TagIngestor ingestor) throws InvalidUsageException, OperationFailureException;
+    }
+
+    /**
+     * Told once per {@link #connect} call when every reader has joined or failed, or the timeout
+     * has passed.
+     */
+    interface ConnectListener {
+        /**
+         * @param joined Readers in the group at that point.
+         * @param timedOut True if some readers were still connecting; they are dropped.
+         */
+        void onConnectDone(int joined, boolean timedOut);
+    }
+
+    /**
+     * One {@link #connect} call. Guarded by the group's lock.
+     */
+    private static class Attempt {
+        final int generation;
+        int remaining;
+        boolean expired;
+        boolean reported;
+
+        Attempt(int generation, int remaining) {
+            this.generation = generation;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * A reader with its lane and ingestion.
+     */
+    private class Member implements RfidEventsListener {
+        final RFIDReader reader;
+        final String name;
+        final TagIngestor ingestor;
+        final ThreadPoolExecutor lane;
+
+        Member(RFIDReader reader, String name, TagIngestor.Mode mode) {
+            this.reader = reader;
+            this.name = name;
+            this.ingestor = new TagIngestor(stream.register(name));
+            this.ingestor.setMode(mode);
+            lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(() -> {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
+                        runnable.run();
+                    }, "Reader-" + name));
+        }
+
+        boolean execute(Runnable task) {
+            try {
+                lane.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        Log.e(TAG, "Task failed on reader " + name, e);
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void eventReadNotify(RfidReadEvents e) {
+            execute(() -> ingestor.onReadEvent(reader, e));
+        }
+
+        @Override
+        public void eventStatusNotify(RfidStatusEvents rfidStatusEvents) {
+            if (rfidStatusEvents == null || rfidStatusEvents.StatusEventData == null) return;
+            if (rfidStatusEvents.StatusEventData.getStatusEventType() == STATUS_EVENT_TYPE.DISCONNECTION_EVENT) {
+                Log.d(TAG, "Reader " + name + " disconnected");
+                remove(this);
+            }
+        }
+    }
+
+    private final MergedTagStream stream;
+    private final ArrayList<Member> members = new ArrayList<>();
+    private final ArrayList<Member> connecting = new ArrayList<>();
+    /** Bumped by {@link #disconnectAll()}; a reader of an older connect call does not join. */
+    private int generation;
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * @param stream Stream the readers' tags are merged into.
+     */
+    ReaderGroup(MergedTagStream stream) {
+        this.stream = stream;
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ReaderGroupTimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        timer.setKeepAliveTime(1, TimeUnit.SECONDS);
+        timer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Connects and configures readers in parallel, each on its own lane, and adds those that
+     * connect to the group. Returns at once; the listener is told when all have finished or the
+     * timeout has passed. A reader that finishes after the timeout or after
+     * {@link #disconnectAll()} is disconnected instead of joining.
+     * @param readers Readers to connect; readers already in the group or connecting are skipped.
+     * @param mode Ingestion mode of the new readers.
+     * @param configurator Applies the session's settings to each reader once connected.
+     * @param timeoutMs Longest time to wait for the readers.
+     * @param listener Receives the outcome on a group thread.
+     */
+    void connect(List<RFIDReader> readers, TagIngestor.Mode mode, Configurator configurator, long timeoutMs, ConnectListener listener) {
+        ArrayList<Member> joining = new ArrayList<>();
+        Attempt attempt;
+        synchronized (this) {
+            for (RFIDReader reader : readers) {
+                if (find(reader.getHostName()) == null) {
+                    Member member = new Member(reader, reader.getHostName(), mode);
+                    joining.add(member);
+                    connecting.add(member);
+                }
+            }
+            attempt = new Attempt(generation, joining.size());
+        }
+        if (joining.isEmpty()) {
+            listener.onConnectDone(size(), false);
+            return;
+        }
+        ScheduledFuture<?> timeout = timer.schedule(() -> expire(attempt, listener), timeoutMs, TimeUnit.MILLISECONDS);
+        for (Member member : joining) {
+            if (!member.execute(() -> join(member, attempt, configurator, timeout, listener))) {
+                finishJoin(member, attempt, false, timeout, listener);
+            }
+        }
+    }
+
+    /**
+     * Runs on the member's lane.
+     */
+    private void join(Member member, Attempt attempt, Configurator configurator, ScheduledFuture<?> timeout, ConnectListener listener) {
+        boolean joined = false;
+        try {
+            long start = System.currentTimeMillis();
+            if (!member.reader.isConnected()) member.reader.connect();
+            member.reader.Events.addEventsListener(member);
+            configurator.configure(member.reader, member.ingestor);
+            synchronized (this) {
+                joined = attempt.generation == generation && !attempt.expired;
+                if (joined) {
+                    members.add(member);
+                    stream.setMerging(true);
+                }
+            }
+            if (joined) {
+                Log.d(TAG, "Reader " + member.name + " joined in " + (System.currentTimeMillis() - start) + " ms");
+            } else {
+                Log.w(TAG, "Reader " + member.name + " connected after the group gave up on it, disconnecting");
+            }
+        } catch (InvalidUsageException | OperationFailureException | RuntimeException e) {
+            Log.e(TAG, "Error connecting reader " + member.name, e);
+        } finally {
+            if (!joined) release(member);
+            finishJoin(member, attempt, joined, timeout, listener);
+        }
+    }
+
+    private void finishJoin(Member member, Attempt attempt, boolean joined, ScheduledFuture<?> timeout, ConnectListener listener) {
+        if (!joined) member.lane.shutdown();
+        boolean report;
+        int size;
+        synchronized (this) {
+            connecting.remove(member);
+            report = --attempt.remaining == 0 && !attempt.reported;
+            if (report) attempt.reported = true;
+            size = members.size();
+        }
+        if (!report) return;
+        timeout.cancel(false);
+        listener.onConnectDone(size, false);
+    }
+
+    private void expire(Attempt attempt, ConnectListener listener) {
+        int size;
+        synchronized (this) {
+            attempt.expired = true;
+            if (attempt.reported) return;
+            attempt.reported = true;
+            size = members.size();
+        }
+        listener.onConnectDone(size, true);
+    }
+
+    /**
+     * Undoes a partial connect on the member's lane; the reader never joined.
+     */
+    private static void release(Member member) {
+        try {
+            member.reader.Events.removeEventsListener(member);
+            if (member.reader.isConnected()) member.reader.disconnect();
+        } catch (InvalidUsageException | OperationFailureException | RuntimeException e) {
+            Log.e(TAG, "Error disconnecting " + member.name, e);
+        }
+    }
+
+    /**
+     * @param hostName Reader host name.
+     * @return True if the reader is in the group or connecting to it.
+     */
+    synchronized boolean contains(String hostName) {
+        return find(hostName) != null;
+    }
+
+    /**
+     * @return Readers in the group.
+     */
+    synchronized int size() {
+        return members.size();
+    }
+
+    /**
+     * Starts inventory on every reader.
+     */
+    synchronized void startInventory() {
+        for (Member member : members) {
+            member.execute(() -> {
+                try {
+                    member.reader.Actions.Inventory.perform();
+                } catch (InvalidUsageException | OperationFailureException e) {
+                    Log.e(TAG, "Error starting inventory on " + member.name, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops inventory on every reader.
+     */
+    synchronized void stopInventory() {
+        for (Member member : members) {
+            member.execute(() -> {
+                try {
+                    member.reader.Actions.Inventory.stop();
+                } catch (InvalidUsageException | OperationFailureException e) {
+                    Log.e(TAG, "Error stopping inventory on " + member.name, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies a setting to every reader, each on its own lane, e.g. a new pre-filter.
+     * @param configurator The setting.
+     */
+    synchronized void configureAll(Configurator configurator) {
+        for (Member member : members) {
+            member.execute(() -> {
+                try {
+                    configurator.configure(member.reader, member.ingestor);
+                } catch (InvalidUsageException | OperationFailureException e) {
+                    Log.e(TAG, "Error configuring " + member.name, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Disconnects every reader and stops their lanes.
+     */
+    void disconnectAll() {
+        ArrayList<Member> leaving;
+        synchronized (this) {
+            generation++;
+            leaving = new ArrayList<>(members);
+        }
+        for (Member member : leaving) {
+            remove(member);
+        }
+    }
+
+    /**
+     * @return Ingestion stats and lane depth per reader.
+     */
+    synchronized String describe() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.US, "reader group: %d readers", members.size()));
+        for (Member member : members) {
+            sb.append(String.format(Locale.US, "\n  %s lane depth=%d\n  ", member.name, member.lane.getQueue().size()));
+            sb.append(member.ingestor.describeStats().trim().replace("\n", "\n  "));
+        }
+        return sb.toString();
+    }
+
+    private void remove(Member member) {
+        synchronized (this) {
+            if (!members.remove(member)) return;
+            if (members.isEmpty()) stream.setMerging(false);
+        }
+        member.execute(() -> {
+            try {
+                member.reader.Events.removeEventsListener(member);
+                member.reader.disconnect();
+            } catch (InvalidUsageException | OperationFailureException e) {
+                Log.e(TAG, "Error disconnecting " + member.name, e);
+            }
+        });
+        member.lane.shutdown();
+    }
+
+    /**
+     * Must hold the lock.
+     * @return The member or connecting reader with this host name, or null.
+     */
+    private Member find(String hostName) {
+        for (Member member : members) {
+            if (member.name.equals(hostName)) return member;
+        }
+        for (Member member : connecting) {
+            if (member.name.equals(hostName)) return member;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+
+/**
+ * The part of a reader that the tag pipeline depends on: connection, inventory control and the
+ * events a reader raises. {@link RFIDHandler} feeds events from the API3 reader and from
+ * {@link SimulatedReaderPort} into the same {@link Listener}, so everything downstream of the
+ * reader (ingestion queue, dedup, statistics, UI) runs identically on real and simulated input.
+ * Inventory requests go to whichever port is active, {@link Api3ReaderPort} or the simulator.
+ */
+interface ReaderPort {
+
+    /**
+     * Events raised by a reader.
+     */
+    interface Listener {
+        /**
+         * @param batch Tags read since the previous batch.
+         */
+        void onTags(TagData[] batch);
+
+        /**
+         * @param pressed True when the handheld trigger was pressed, false when released.
+         */
+        void onTrigger(boolean pressed);
+
+        void onInventoryStarted();
+
+        void onInventoryStopped();
+
+        void onDisconnected();
+    }
+
+    /**
+     * @param listener Receiver for reader events, or null to detach.
+     */
+    void setListener(Listener listener);
+
+    /**
+     * @return True if the port connected.
+     */
+    boolean connect();
+
+    void disconnect();
+
+    boolean isConnected();
+
+    /**
+     * @return Reader host name.
+     */
+    String getHostName();
+
+    void startInventory();
+
+    void stopInventory();
+}
@@ -0,0 +1,77 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.zebra.rfid.api3.ENUM_TRANSPORT;
+
+
+/**
+ * Persists the last reader the handler connected to successfully, so the next connect can skip
+ * the full multi-transport discovery.
+ * <p>
+ * The stored entry is the transport, the reader host name and a configuration fingerprint. An
+ * entry whose fingerprint does not match the current one is treated as absent.
+ */
+class ReaderSessionStore {
+    private static final String PREFS_NAME = "reader_session";
+    private static final String KEY_TRANSPORT = "transport";
+    private static final String KEY_HOST_NAME = "host_name";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+
+    private final SharedPreferences prefs;
+    private final String fingerprint;
+
+    /**
+     * @param context Context used to open the preferences file.
+     * @param fingerprint Fingerprint of the current reader configuration.
+     */
+    ReaderSessionStore(Context context, String fingerprint) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Records a successful connection.
+     * @param transport Transport the reader was found on.
+     * @param hostName Reader host name.
+     */
+    void save(ENUM_TRANSPORT transport, String hostName) {
+        if (transport == null || hostName == null) return;
+        prefs.edit()
+                .putString(KEY_TRANSPORT, transport.name())
+                .putString(KEY_HOST_NAME, hostName)
+                .putString(KEY_FINGERPRINT, fingerprint)
+                .apply();
+    }
+
+    /**
+     * @return The persisted transport, or null if nothing valid is stored.
+     */
+    ENUM_TRANSPORT getTransport() {
+        if (!isValid()) return null;
+        try {
+            return ENUM_TRANSPORT.valueOf(prefs.getString(KEY_TRANSPORT, ""));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The persisted reader host name, or null if nothing valid is stored.
+     */
+    String getHostName() {
+        return isValid() ? prefs.getString(KEY_HOST_NAME, null) : null;
+    }
+
+    /**
+     * Forgets the stored reader, e.g. after the fast path failed.
+     */
+    void clear() {
+        prefs.edit().clear().apply();
+    }
+
+    private boolean isValid() {
+        return fingerprint.equals(prefs.getString(KEY_FINGERPRINT, null));
+    }
+}
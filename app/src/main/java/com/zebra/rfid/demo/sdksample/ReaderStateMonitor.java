@@ -0,0 +1,179 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Tracks whether the reader is running an inventory and lets callers wait for it to go idle.
+ * <p>
+ * The busy flag is driven by INVENTORY_START_EVENT / INVENTORY_STOP_EVENT. Threads that must not
+ * touch the reader configuration during an inventory either block in {@link #awaitIdle(long)}
+ * with a timeout, or hand a request to {@link #runWhenIdle(Runnable)}, which queues it and
+ * releases it to the configuration executor the moment the stop event arrives.
+ * <p>
+ * The time between the reader going idle and a waiting request starting is recorded as the
+ * switch latency. Requests still queued when the reader disconnects are dropped by
+ * {@link #reset()}, since they target the old connection and the next connect configures the
+ * reader from scratch.
+ */
+class ReaderStateMonitor {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition idleCondition = lock.newCondition();
+    private final ArrayDeque<Runnable> pendingRequests = new ArrayDeque<>();
+    private final Executor configExecutor;
+    private volatile boolean busy;
+    private long idleSinceNanos = System.nanoTime();
+
+    private long switchCount;
+    private long lastSwitchNanos;
+    private long maxSwitchNanos;
+    private long totalSwitchNanos;
+
+    /**
+     * @param configExecutor Executor that runs queued configuration requests.
+     */
+    ReaderStateMonitor(Executor configExecutor) {
+        this.configExecutor = configExecutor;
+    }
+
+    /**
+     * @return True while an inventory is running.
+     */
+    boolean isBusy() {
+        return busy;
+    }
+
+    /**
+     * Called on INVENTORY_START_EVENT.
+     */
+    void markBusy() {
+        lock.lock();
+        try {
+            busy = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called on INVENTORY_STOP_EVENT or after (re)connecting. Wakes waiters and releases queued requests.
+     */
+    void markIdle() {
+        lock.lock();
+        try {
+            if (!busy && pendingRequests.isEmpty()) return;
+            busy = false;
+            idleSinceNanos = System.nanoTime();
+            idleCondition.signalAll();
+            while (!pendingRequests.isEmpty()) {
+                configExecutor.execute(pendingRequests.poll());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called on disconnect. Drops queued requests without running them and wakes waiters.
+     */
+    void reset() {
+        lock.lock();
+        try {
+            pendingRequests.clear();
+            busy = false;
+            idleSinceNanos = System.nanoTime();
+            idleCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Requests waiting for the reader to go idle.
+     */
+    int pendingCount() {
+        lock.lock();
+        try {
+            return pendingRequests.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the reader is idle.
+     * @param timeoutMs Maximum time to wait.
+     * @return True if the reader is idle, false on timeout.
+     * @throws InterruptedException If the waiting thread is interrupted.
+     */
+    boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        lock.lock();
+        try {
+            if (!busy) return true;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (busy) {
+                if (remaining <= 0) return false;
+                remaining = idleCondition.awaitNanos(remaining);
+            }
+            recordSwitch(System.nanoTime() - idleSinceNanos);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs a configuration request on the configuration executor as soon as the reader is idle.
+     * @param request The request; runs immediately (on the executor) if the reader is already idle.
+     */
+    void runWhenIdle(Runnable request) {
+        lock.lock();
+        try {
+            if (!busy) {
+                configExecutor.execute(request);
+            } else {
+                pendingRequests.add(() -> {
+                    recordSwitchSinceIdle();
+                    request.run();
+                });
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordSwitchSinceIdle() {
+        lock.lock();
+        try {
+            recordSwitch(System.nanoTime() - idleSinceNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordSwitch(long nanos) {
+        switchCount++;
+        lastSwitchNanos = nanos;
+        totalSwitchNanos += nanos;
+        if (nanos > maxSwitchNanos) maxSwitchNanos = nanos;
+    }
+
+    /**
+     * @return Idle-to-switch latency summary for requests that had to wait for the reader.
+     */
+    String describeSwitchLatency() {
+        lock.lock();
+        try {
+            if (switchCount == 0) return "switch latency: no waits";
+            return String.format(Locale.US, "switch latency: n=%d last=%.2f ms avg=%.2f ms max=%.2f ms",
+                    switchCount, lastSwitchNanos / 1e6, totalSwitchNanos / 1e6 / switchCount, maxSwitchNanos / 1e6);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.Process;
+import android.util.Log;
+
+import com.zebra.scannercontrol.DCSSDKDefs;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+/**
+ * Queue of scanner SDK commands with completion futures.
+ * <p>
+ * Commands are sent one at a time, in submission order, by a drain task on the queue's own
+ * thread at default priority, so callers never block on the SDK, a burst of commands costs one
+ * task, and a pull never waits behind scanner SDK setup on the scanner lane. The
+ * {@code <inArgs>} payload of each scanner is built once and reused.
+ * <p>
+ * A trigger pull or release that repeats the last command still queued for the same scanner
+ * is merged into it and shares its future, so hammering the scan button does not build up a
+ * backlog of pulls. Each future fails with a {@link TimeoutException} if the command has not
+ * completed within its timeout; a command that times out while still queued is never sent.
+ * The SDK call itself cannot be interrupted, so a command already on the wire runs to the end.
+ * <p>
+ * Queue wait and round-trip time of the SDK call go into separate histograms.
+ */
+class ScannerCommandQueue {
+    private static final String TAG = "ScannerCommandQueue";
+
+    /**
+     * Sends a command to the scanner SDK; runs on the queue's executor.
+     */
+    interface Transport {
+        DCSSDKDefs.DCSSDK_RESULT execute(DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode, String inXml, StringBuilder outXml, int scannerId);
+    }
+
+    private static class Command {
+        final DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode;
+        final int scannerId;
+        final String inXml;
+        final long enqueuedNanos = System.nanoTime();
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        ScheduledFuture<?> timeout;
+
+        Command(DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode, int scannerId, String inXml) {
+            this.opCode = opCode;
+            this.scannerId = scannerId;
+            this.inXml = inXml;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Transport transport;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ConcurrentHashMap<Integer, String> payloads = new ConcurrentHashMap<>();
+    private final ArrayDeque<Command> pending = new ArrayDeque<>();
+    private boolean draining;
+    private boolean shutdown;
+
+    private final LatencyHistogram roundTrip = new LatencyHistogram("scanner command rtt");
+    private final LatencyHistogram queueWait = new LatencyHistogram("scanner command wait");
+    private long sent;
+    private long coalesced;
+    private long failed;
+    private long timedOut;
+
+    /**
+     * @param transport Sends a command to the SDK.
+     */
+    ScannerCommandQueue(Transport transport) {
+        this.transport = transport;
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
+                    runnable.run();
+                }, "ScannerCommands"));
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ScannerCommandTimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Queues a command that takes only the scanner ID as argument.
+     * @param opCode Command to send.
+     * @param scannerId Target scanner.
+     * @param timeoutMs Time after which the future fails if the command has not completed.
+     * @return Completes with the SDK's output XML, or fails with a {@link TimeoutException}, an
+     * {@link IOException} if the SDK rejects the command, or an {@link IllegalStateException}
+     * once the queue is shut down.
+     */
+    CompletableFuture<String> submit(DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode, int scannerId, long timeoutMs) {
+        Command command;
+        synchronized (this) {
+            if (shutdown) {
+                CompletableFuture<String> future = new CompletableFuture<>();
+                future.completeExceptionally(new IllegalStateException("Scanner command queue is shut down"));
+                return future;
+            }
+            if (isTrigger(opCode)) {
+                Command last = lastPendingFor(scannerId);
+                if (last != null && last.opCode == opCode && !last.future.isDone()) {
+                    coalesced++;
+                    return last.future;
+                }
+            }
+            command = new Command(opCode, scannerId, payloads.computeIfAbsent(scannerId, ScannerCommandQueue::scannerIdPayload));
+            pending.add(command);
+            command.timeout = timer.schedule(() -> expire(command, timeoutMs), timeoutMs, TimeUnit.MILLISECONDS);
+            if (draining) return command.future;
+            draining = true;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Shut down in between; shutdown() has already failed the command.
+            synchronized (this) {
+                draining = false;
+            }
+        }
+        return command.future;
+    }
+
+    /**
+     * @return Commands queued and not yet sent.
+     */
+    synchronized int depth() {
+        return pending.size();
+    }
+
+    /**
+     * @return Command counters with queue wait and round-trip times.
+     */
+    synchronized String describe() {
+        return String.format(Locale.US, "scanner commands: %d sent, %d coalesced, %d failed, %d timed out, %d queued\n  %s\n  %s",
+                sent, coalesced, failed, timedOut, pending.size(), queueWait.describe(), roundTrip.describe());
+    }
+
+    /**
+     * Fails every queued command but keeps the queue running, e.g. before the scanner session
+     * the commands were meant for ends. A command already on the wire runs to the end.
+     * @param reason Message of the {@link IllegalStateException} the futures fail with.
+     */
+    synchronized void cancelPending(String reason) {
+        failPending(reason);
+    }
+
+    /**
+     * Fails every queued command and stops the queue's thread and the timeout timer. A command
+     * already on the wire runs to the end.
+     */
+    void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            failPending("Scanner command queue is shut down");
+        }
+        executor.shutdown();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Must hold the lock.
+     */
+    private void failPending(String reason) {
+        for (Command command : pending) {
+            command.timeout.cancel(false);
+            command.future.completeExceptionally(new IllegalStateException(reason));
+        }
+        pending.clear();
+    }
+
+    private void drain() {
+        while (true) {
+            Command command;
+            synchronized (this) {
+                command = pending.poll();
+                if (command == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            // Timed out while queued: the caller has given up on it.
+            if (command.future.isDone()) continue;
+            long start = System.nanoTime();
+            queueWait.recordNanos(start - command.enqueuedNanos);
+            StringBuilder outXml = new StringBuilder();
+            DCSSDKDefs.DCSSDK_RESULT result;
+            try {
+                result = transport.execute(command.opCode, command.inXml, outXml, command.scannerId);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error sending " + command.opCode, e);
+                result = DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_FAILURE;
+            }
+            roundTrip.recordNanos(System.nanoTime() - start);
+            command.timeout.cancel(false);
+            synchronized (this) {
+                sent++;
+                if (result != DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_SUCCESS) failed++;
+            }
+            if (result == DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_SUCCESS) {
+                command.future.complete(outXml.toString());
+            } else {
+                command.future.completeExceptionally(new IOException(command.opCode + " failed on scanner " + command.scannerId + ": " + result));
+            }
+        }
+    }
+
+    private void expire(Command command, long timeoutMs) {
+        if (command.future.completeExceptionally(new TimeoutException(command.opCode + " not completed within " + timeoutMs + " ms"))) {
+            synchronized (this) {
+                timedOut++;
+            }
+        }
+    }
+
+    /**
+     * Must hold the lock.
+     */
+    private Command lastPendingFor(int scannerId) {
+        for (Iterator<Command> it = pending.descendingIterator(); it.hasNext(); ) {
+            Command command = it.next();
+            if (command.scannerId == scannerId) return command;
+        }
+        return null;
+    }
+
+    private static boolean isTrigger(DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode) {
+        return opCode == DCSSDKDefs.DCSSDK_COMMAND_OPCODE.DCSSDK_DEVICE_PULL_TRIGGER
+                || opCode == DCSSDKDefs.DCSSDK_COMMAND_OPCODE.DCSSDK_DEVICE_RELEASE_TRIGGER;
+    }
+
+    private static String scannerIdPayload(int scannerId) {
+        return "<inArgs><scannerID>" + scannerId + "</scannerID></inArgs>";
+    }
+}
@@ -1,6 +1,7 @@
 package com.zebra.rfid.demo.sdksample;
 
 import android.util.Log;
+
 import com.zebra.scannercontrol.DCSScannerInfo;
 import com.zebra.scannercontrol.FirmwareUpdateEvent;
 import com.zebra.scannercontrol.IDcsSdkApiDelegate;
@@ -14,13 +15,16 @@ import com.zebra.scannercontrol.IDcsSdkApiDelegate;
 public class ScannerHandler implements IDcsSdkApiDelegate {
     private static final String TAG = "ScannerHandler";
     private final MainActivity context;
+    private final BarcodePipeline pipeline;
 
     /**
      * Constructs a ScannerHandler with the given activity context.
      * @param context The MainActivity context for UI callbacks.
+     * @param pipeline Decodes scans and delivers them to the UI and other consumers.
      */
-    public ScannerHandler(MainActivity context) {
+    public ScannerHandler(MainActivity context, BarcodePipeline pipeline) {
         this.context = context;
+        this.pipeline = pipeline;
     }
 
     /**
@@ -77,11 +81,7 @@ public class ScannerHandler implements IDcsSdkApiDelegate {
      */
     @Override
     public void dcssdkEventBarcode(byte[] barcodeData, int barcodeType, int fromScannerID) {
-        String s = new String(barcodeData);
-        if (context != null) {
-            context.barcodeData(s);
-        }
-        Log.d(TAG, "Barcode scanned: " + s);
+        pipeline.onBarcode(barcodeData, barcodeType);
     }
 
     /**
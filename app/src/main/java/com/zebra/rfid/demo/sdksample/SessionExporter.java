@@ -0,0 +1,198 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+
+/**
+ * Streams the per-tag aggregates of a session to CSV or JSON Lines.
+ * <p>
+ * Rows are copied out of the {@link EpcSet} and {@link TagStatsTable} in fixed-size chunks under
+ * the caller's lock and written after the lock is released, so ingestion keeps running during a
+ * long export and memory use depends only on the chunk and writer buffer sizes, not on the
+ * number of tags. Tags added after the export started are not included; if the session is
+ * cleared mid-way the export stops at that point.
+ */
+class SessionExporter {
+    private static final int CHUNK_ROWS = 4096;
+    private static final int WRITER_BUFFER_CHARS = 64 * 1024;
+    private static final String CSV_HEADER = "epc,reads,rssi_min,rssi_max,rssi_ema,first_seen_ms,last_seen_ms,antenna\n";
+
+    /**
+     * Output formats.
+     */
+    enum Format {
+        CSV("csv"),
+        JSON_LINES("jsonl");
+
+        final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    private final EpcSet tags;
+    private final TagStatsTable stats;
+    private final Object lock;
+
+    private final String[] epcs = new String[CHUNK_ROWS];
+    private final int[] reads = new int[CHUNK_ROWS];
+    private final short[] rssiMin = new short[CHUNK_ROWS];
+    private final short[] rssiMax = new short[CHUNK_ROWS];
+    private final float[] rssiEma = new float[CHUNK_ROWS];
+    private final long[] firstSeen = new long[CHUNK_ROWS];
+    private final long[] lastSeen = new long[CHUNK_ROWS];
+    private final short[] antenna = new short[CHUNK_ROWS];
+
+    /**
+     * @param tags Session tag set.
+     * @param stats Per-tag statistics indexed by tag ordinal.
+     * @param lock Lock guarding both tables.
+     */
+    SessionExporter(EpcSet tags, TagStatsTable stats, Object lock) {
+        this.tags = tags;
+        this.stats = stats;
+        this.lock = lock;
+    }
+
+    /**
+     * Writes the session to a new file named after the current time. Not thread-safe; run one
+     * export at a time.
+     * @param dir Output directory.
+     * @param format Output format.
+     * @return The file written.
+     * @throws IOException If writing fails.
+     */
+    File export(File dir, Format format) throws IOException {
+        File file = new File(dir, String.format(Locale.US, "session_%d.%s", System.currentTimeMillis(), format.extension));
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), WRITER_BUFFER_CHARS)) {
+            export(writer, format);
+        }
+        return file;
+    }
+
+    /**
+     * Streams the session to a writer.
+     * @param writer Destination; not closed.
+     * @param format Output format.
+     * @return Number of tags written.
+     * @throws IOException If writing fails.
+     */
+    int export(Writer writer, Format format) throws IOException {
+        JsonWriter json = null;
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        } else {
+            json = new JsonWriter(writer);
+            json.setLenient(true);
+        }
+        int total;
+        synchronized (lock) {
+            total = tags.size();
+        }
+        int written = 0;
+        while (written < total) {
+            int n = copyChunk(written, Math.min(CHUNK_ROWS, total - written));
+            if (n == 0) break;
+            for (int i = 0; i < n; i++) {
+                if (json != null) {
+                    writeJsonLine(json, writer, i);
+                } else {
+                    writeCsvLine(writer, i);
+                }
+            }
+            written += n;
+        }
+        if (json != null) json.flush();
+        writer.flush();
+        return written;
+    }
+
+    /**
+     * @return Rows copied; fewer than requested if the session was cleared.
+     */
+    private int copyChunk(int from, int count) {
+        synchronized (lock) {
+            int available = Math.min(count, tags.size() - from);
+            for (int i = 0; i < available; i++) {
+                int ordinal = from + i;
+                epcs[i] = tags.get(ordinal);
+                if (ordinal < stats.size()) {
+                    reads[i] = stats.getReadCount(ordinal);
+                    rssiMin[i] = stats.getRssiMin(ordinal);
+                    rssiMax[i] = stats.getRssiMax(ordinal);
+                    rssiEma[i] = stats.getRssiEma(ordinal);
+                    firstSeen[i] = stats.getFirstSeenMs(ordinal);
+                    lastSeen[i] = stats.getLastSeenMs(ordinal);
+                    antenna[i] = stats.getAntenna(ordinal);
+                } else {
+                    reads[i] = 0;
+                }
+            }
+            return Math.max(available, 0);
+        }
+    }
+
+    private void writeCsvLine(Writer writer, int i) throws IOException {
+        writeCsvField(writer, epcs[i]);
+        writer.write(',');
+        writer.write(Integer.toString(reads[i]));
+        if (reads[i] > 0) {
+            writer.write(',');
+            writer.write(Short.toString(rssiMin[i]));
+            writer.write(',');
+            writer.write(Short.toString(rssiMax[i]));
+            writer.write(',');
+            writer.write(Double.toString(Math.round(rssiEma[i] * 10) / 10.0));
+            writer.write(',');
+            writer.write(Long.toString(firstSeen[i]));
+            writer.write(',');
+            writer.write(Long.toString(lastSeen[i]));
+            writer.write(',');
+            writer.write(Short.toString(antenna[i]));
+        } else {
+            writer.write(",,,,,,");
+        }
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private void writeJsonLine(JsonWriter json, Writer writer, int i) throws IOException {
+        json.beginObject();
+        json.name("epc").value(epcs[i]);
+        json.name("reads").value(reads[i]);
+        if (reads[i] > 0) {
+            json.name("rssi_min").value(rssiMin[i]);
+            json.name("rssi_max").value(rssiMax[i]);
+            json.name("rssi_ema").value(Math.round(rssiEma[i] * 10) / 10.0);
+            json.name("first_seen_ms").value(firstSeen[i]);
+            json.name("last_seen_ms").value(lastSeen[i]);
+            json.name("antenna").value(antenna[i]);
+        }
+        json.endObject();
+        writer.write('\n');
+    }
+}
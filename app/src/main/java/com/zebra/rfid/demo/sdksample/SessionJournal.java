@@ -0,0 +1,452 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import com.zebra.rfid.api3.TagData;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+
+/**
+ * Append-only binary journal of every tag read in the current inventory session, written
+ * through memory-mapped segments so a session survives the process being killed.
+ * <p>
+ * Layout: a 32-byte header (magic, version, session epoch, synced offset, state) followed by
+ * records of {@code [u8 epcLength][epc ASCII][i16 rssi][i16 antenna][i64 timestampMs][i32 crc]}.
+ * The CRC covers the record and the session epoch, so records left over from an earlier session
+ * never validate. Records do not straddle the 4 MiB segments; a 0xFF byte pads to the next
+ * segment. Only the header, the segment being written, segments not yet synced and the segment
+ * being read are mapped; earlier mappings are dropped.
+ * <p>
+ * Writes to the mapping land in the kernel page cache and survive process death on their own.
+ * {@link #sync()} forces them to storage to also survive power loss and records the synced
+ * offset in the header. {@link #close(boolean)} marks a session that ended normally; on the
+ * next {@link #open()} such a session is discarded, while one that was interrupted is scanned
+ * from the start to the first record that does not validate, which is where appending resumes,
+ * and {@link #replay} hands its reads back with their original timestamps. Reads appended before
+ * {@link #open()} has finished are buffered and written once it has.
+ */
+class SessionJournal {
+    private static final String TAG = "SessionJournal";
+    private static final int MAGIC = 0x524A4E31; // "RJN1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int OFFSET_EPOCH = 8;
+    private static final int OFFSET_SYNCED = 16;
+    private static final int OFFSET_STATE = 24;
+    private static final int STATE_ACTIVE = 0;
+    private static final int STATE_ENDED = 1;
+    private static final long SEGMENT_BYTES = 4L << 20;
+    private static final int MAX_EPC_BYTES = 254;
+    private static final int RECORD_OVERHEAD = 1 + 2 + 2 + 8 + 4;
+    private static final byte SEGMENT_PAD = (byte) 0xFF;
+    private static final int REPLAY_BATCH = 256;
+    /** Reads buffered while the journal opens; later ones are dropped and counted. */
+    private static final int MAX_PENDING_READS = 1 << 16;
+
+    /**
+     * Receives recovered reads in batches.
+     */
+    interface ReplaySink {
+        /**
+         * @param batch Recovered reads.
+         * @param timestampsMs Original read time of each read, in milliseconds.
+         */
+        void onReplayBatch(TagData[] batch, long[] timestampsMs);
+    }
+
+    private static class PendingBatch {
+        final TagData[] tags;
+        final long timestampMs;
+
+        PendingBatch(TagData[] tags, long timestampMs) {
+            this.tags = tags;
+            this.timestampMs = timestampMs;
+        }
+    }
+
+    private final File file;
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch = new byte[MAX_EPC_BYTES + RECORD_OVERHEAD];
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer writeSegment;
+    private long writeSegmentIndex = -1;
+    /** Segments written since the last sync, the current one included. */
+    private final ArrayList<MappedByteBuffer> unsynced = new ArrayList<>();
+    private MappedByteBuffer readSegment;
+    private long readSegmentIndex = -1;
+    private long lastReadTimestampMs;
+
+    private long epoch;
+    private long position;
+    /** End of the records recovered by {@link #open()}; replay stops here. */
+    private long recoveredEnd;
+    private volatile boolean open;
+    private boolean closed;
+    private final ArrayList<PendingBatch> pending = new ArrayList<>();
+    private int pendingReads;
+
+    private long recordCount;
+    private long recoveredCount;
+    private long recoveredUnsynced;
+    private long droppedBeforeOpen;
+    private long syncCount;
+    private long lastSyncMs = -1;
+
+    /**
+     * @param file Journal file; created if missing.
+     */
+    SessionJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Maps the journal, recovers an interrupted session and writes the reads buffered so far.
+     * Call once, off the UI thread.
+     * @throws IOException If the file cannot be opened or mapped; the journal then stays closed.
+     */
+    synchronized void open() throws IOException {
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                startSession(System.currentTimeMillis());
+            } else if (header.getInt(OFFSET_STATE) == STATE_ENDED) {
+                startSession(Math.max(System.currentTimeMillis(), header.getLong(OFFSET_EPOCH) + 1));
+            } else {
+                epoch = header.getLong(OFFSET_EPOCH);
+                long synced = header.getLong(OFFSET_SYNCED);
+                position = HEADER_BYTES;
+                long next;
+                while ((next = readRecord(position, null)) > 0) {
+                    if (next > synced) recoveredUnsynced++;
+                    position = next;
+                    recoveredCount++;
+                }
+            }
+        } catch (IOException e) {
+            closed = true;
+            pending.clear();
+            releaseMappings();
+            throw e;
+        }
+        header.putInt(OFFSET_STATE, STATE_ACTIVE);
+        recoveredEnd = position;
+        recordCount = recoveredCount;
+        readSegment = null;
+        readSegmentIndex = -1;
+        open = true;
+        for (PendingBatch batch : pending) {
+            if (!writeBatch(batch.tags, batch.timestampMs)) break;
+        }
+        pending.clear();
+        pendingReads = 0;
+        Log.d(TAG, "Opened journal with " + recoveredCount + " recovered reads (" + recoveredUnsynced
+                + " after the last sync), " + position + " bytes");
+    }
+
+    /**
+     * @return True once {@link #open()} succeeded.
+     */
+    boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Feeds the reads of an interrupted session recovered by {@link #open()} to the sink. Does
+     * nothing after a session that ended normally.
+     * @param sink Receiver of recovered reads.
+     */
+    synchronized void replay(ReplaySink sink) {
+        if (!open || recoveredCount == 0) return;
+        long pos = HEADER_BYTES;
+        TagData[] batch = new TagData[REPLAY_BATCH];
+        long[] times = new long[REPLAY_BATCH];
+        int n = 0;
+        long next;
+        while (pos < recoveredEnd && (next = readRecord(pos, batch[n] = new TagData())) > 0) {
+            times[n] = lastReadTimestampMs;
+            pos = next;
+            if (++n == REPLAY_BATCH) {
+                sink.onReplayBatch(batch, times);
+                batch = new TagData[REPLAY_BATCH];
+                times = new long[REPLAY_BATCH];
+                n = 0;
+            }
+        }
+        if (n > 0) {
+            TagData[] tail = new TagData[n];
+            long[] tailTimes = new long[n];
+            System.arraycopy(batch, 0, tail, 0, n);
+            System.arraycopy(times, 0, tailTimes, 0, n);
+            sink.onReplayBatch(tail, tailTimes);
+        }
+        readSegment = null;
+        readSegmentIndex = -1;
+    }
+
+    /**
+     * Appends one record per read, or buffers the batch while the journal is still opening.
+     * @param batch Reads from the tag queue.
+     */
+    synchronized void append(TagData[] batch) {
+        if (closed) return;
+        long now = System.currentTimeMillis();
+        if (!open) {
+            if (pendingReads + batch.length > MAX_PENDING_READS) {
+                droppedBeforeOpen += batch.length;
+                return;
+            }
+            pending.add(new PendingBatch(batch, now));
+            pendingReads += batch.length;
+            return;
+        }
+        writeBatch(batch, now);
+    }
+
+    /**
+     * Starts a new, empty session. Records of the previous session stop validating immediately.
+     */
+    synchronized void reset() {
+        if (closed) return;
+        if (!open) {
+            pending.clear();
+            pendingReads = 0;
+            return;
+        }
+        startSession(Math.max(System.currentTimeMillis(), epoch + 1));
+        recordCount = 0;
+        recoveredCount = 0;
+        recoveredUnsynced = 0;
+        recoveredEnd = HEADER_BYTES;
+    }
+
+    /**
+     * Forces written records to storage and advances the synced offset in the header.
+     */
+    void sync() {
+        MappedByteBuffer[] dirty;
+        long synced;
+        long syncedEpoch;
+        synchronized (this) {
+            if (!open) return;
+            synced = position;
+            syncedEpoch = epoch;
+            dirty = unsynced.toArray(new MappedByteBuffer[0]);
+            unsynced.clear();
+            if (writeSegment != null) unsynced.add(writeSegment);
+        }
+        long start = System.currentTimeMillis();
+        for (MappedByteBuffer segment : dirty) {
+            segment.force();
+        }
+        synchronized (this) {
+            if (!open) return;
+            if (syncedEpoch == epoch) header.putLong(OFFSET_SYNCED, synced);
+            header.force();
+            syncCount++;
+            lastSyncMs = System.currentTimeMillis() - start;
+        }
+    }
+
+    /**
+     * @return Record, recovery and sync counters.
+     */
+    synchronized String describe() {
+        return String.format(Locale.US, "journal: %d reads (%d recovered, %d after last sync), %d KB, %d syncs, last sync %d ms%s%s",
+                recordCount, recoveredCount, recoveredUnsynced, position / 1024, syncCount, lastSyncMs,
+                droppedBeforeOpen > 0 ? ", " + droppedBeforeOpen + " dropped before open" : "",
+                open ? "" : " (closed)");
+    }
+
+    /**
+     * Syncs and unmaps the journal; the file is kept.
+     * @param sessionEnded True if the session ended normally and must not be restored on the
+     * next open, false if it should survive, e.g. when the activity is only being recreated.
+     */
+    synchronized void close(boolean sessionEnded) {
+        if (open) {
+            for (MappedByteBuffer segment : unsynced) {
+                segment.force();
+            }
+            header.putLong(OFFSET_SYNCED, position);
+            header.putInt(OFFSET_STATE, sessionEnded ? STATE_ENDED : STATE_ACTIVE);
+            header.force();
+        }
+        open = false;
+        closed = true;
+        pending.clear();
+        releaseMappings();
+    }
+
+    private void releaseMappings() {
+        header = null;
+        writeSegment = null;
+        writeSegmentIndex = -1;
+        readSegment = null;
+        readSegmentIndex = -1;
+        unsynced.clear();
+        try {
+            if (channel != null) channel.close();
+            if (raf != null) raf.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Error closing journal", e);
+        }
+    }
+
+    private void startSession(long newEpoch) {
+        epoch = newEpoch;
+        position = HEADER_BYTES;
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(OFFSET_EPOCH, epoch);
+        header.putLong(OFFSET_SYNCED, HEADER_BYTES);
+        header.putInt(OFFSET_STATE, STATE_ACTIVE);
+    }
+
+    /**
+     * @return False if writing failed and the journal was closed.
+     */
+    private boolean writeBatch(TagData[] batch, long timestampMs) {
+        for (TagData tag : batch) {
+            if (tag == null || tag.getTagID() == null) continue;
+            try {
+                writeRecord(tag.getTagID(), tag.getPeakRSSI(), tag.getAntennaID(), timestampMs);
+            } catch (IOException e) {
+                Log.e(TAG, "Journal append failed, journaling stopped", e);
+                open = false;
+                closed = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeRecord(String epc, short rssi, short antenna, long timestampMs) throws IOException {
+        int length = Math.min(epc.length(), MAX_EPC_BYTES);
+        int size = RECORD_OVERHEAD + length;
+        int offset = (int) (position % SEGMENT_BYTES);
+        if (offset + size > SEGMENT_BYTES) {
+            writeSegment(position / SEGMENT_BYTES).put(offset, SEGMENT_PAD);
+            position += SEGMENT_BYTES - offset;
+            offset = 0;
+        }
+        MappedByteBuffer segment = writeSegment(position / SEGMENT_BYTES);
+        byte[] b = scratch;
+        b[0] = (byte) length;
+        for (int i = 0; i < length; i++) {
+            char c = epc.charAt(i);
+            b[1 + i] = (byte) (c < 0x80 ? c : '?');
+        }
+        int p = 1 + length;
+        b[p++] = (byte) (rssi >> 8);
+        b[p++] = (byte) rssi;
+        b[p++] = (byte) (antenna >> 8);
+        b[p++] = (byte) antenna;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            b[p++] = (byte) (timestampMs >>> shift);
+        }
+        int checksum = checksum(b, p);
+        b[p++] = (byte) (checksum >>> 24);
+        b[p++] = (byte) (checksum >>> 16);
+        b[p++] = (byte) (checksum >>> 8);
+        b[p++] = (byte) checksum;
+        for (int i = 0; i < p; i++) {
+            segment.put(offset + i, b[i]);
+        }
+        position += size;
+        recordCount++;
+    }
+
+    /**
+     * Validates the record at a position and optionally decodes it. The timestamp of a decoded
+     * record is left in {@link #lastReadTimestampMs}.
+     * @param pos Journal offset of the record.
+     * @param into Receives the EPC, RSSI and antenna, or null to only validate.
+     * @return Offset of the next record, or -1 at the end of the valid records.
+     */
+    private long readRecord(long pos, TagData into) {
+        try {
+            int offset = (int) (pos % SEGMENT_BYTES);
+            MappedByteBuffer segment = readSegment(pos / SEGMENT_BYTES);
+            byte first = segment.get(offset);
+            if (first == SEGMENT_PAD) {
+                long next = pos + SEGMENT_BYTES - offset;
+                return readRecord(next, into);
+            }
+            int length = first & 0xFF;
+            if (length == 0) return -1;
+            int size = RECORD_OVERHEAD + length;
+            if (offset + size > SEGMENT_BYTES) return -1;
+            byte[] b = scratch;
+            for (int i = 0; i < size; i++) {
+                b[i] = segment.get(offset + i);
+            }
+            int p = size - 4;
+            int stored = (b[p] & 0xFF) << 24 | (b[p + 1] & 0xFF) << 16 | (b[p + 2] & 0xFF) << 8 | (b[p + 3] & 0xFF);
+            if (stored != checksum(b, p)) return -1;
+            if (into != null) {
+                char[] epc = new char[length];
+                for (int i = 0; i < length; i++) {
+                    epc[i] = (char) b[1 + i];
+                }
+                into.setTagID(new String(epc));
+                into.setPeakRSSI((short) ((b[1 + length] << 8) | (b[2 + length] & 0xFF)));
+                into.setAntennaID((short) ((b[3 + length] << 8) | (b[4 + length] & 0xFF)));
+                long timestampMs = 0;
+                for (int i = 5 + length; i < 13 + length; i++) {
+                    timestampMs = (timestampMs << 8) | (b[i] & 0xFF);
+                }
+                lastReadTimestampMs = timestampMs;
+            }
+            return pos + size;
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading journal at " + pos, e);
+            return -1;
+        }
+    }
+
+    private int checksum(byte[] b, int length) {
+        crc.reset();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (epoch >>> shift));
+        }
+        crc.update(b, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer writeSegment(long index) throws IOException {
+        if (index != writeSegmentIndex) {
+            writeSegment = map(index);
+            writeSegmentIndex = index;
+            unsynced.add(writeSegment);
+        }
+        return writeSegment;
+    }
+
+    private MappedByteBuffer readSegment(long index) throws IOException {
+        if (index == writeSegmentIndex) return writeSegment;
+        if (index != readSegmentIndex) {
+            readSegment = map(index);
+            readSegmentIndex = index;
+        }
+        return readSegment;
+    }
+
+    /**
+     * Segment 0 also covers the header bytes; records start after them.
+     */
+    private MappedByteBuffer map(long index) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, index * SEGMENT_BYTES, SEGMENT_BYTES);
+    }
+}
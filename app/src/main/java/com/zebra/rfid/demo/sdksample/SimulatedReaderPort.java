@@ -0,0 +1,217 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * In-process reader that generates a synthetic tag stream, for load testing the tag pipeline
+ * without hardware.
+ * <p>
+ * A generator thread emits reads from a fixed tag population at the configured rate while an
+ * inventory is running, delivering them in batches the way the API3 read callback does. RSSI is
+ * drawn from a normal distribution and antennas are picked uniformly. The simulator can also
+ * press and release the trigger on a fixed cycle and drop the connection after a set time, so
+ * the trigger and disconnect paths see realistic traffic too. The class has no Android
+ * dependencies and runs on a plain JVM.
+ */
+class SimulatedReaderPort implements ReaderPort {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Simulation parameters. Fields may be changed before {@link #connect()}.
+     */
+    static class Config {
+        /** Number of distinct tags in the field. */
+        int population = 1000;
+        /** Reads generated per second while an inventory runs. */
+        int readsPerSecond = 1000;
+        /** Maximum reads per delivered batch. */
+        int batchSize = 64;
+        float rssiMean = -55f;
+        float rssiStdDev = 8f;
+        int antennaCount = 1;
+        /** Trigger press cycle length in ms; 0 leaves the trigger to the caller. */
+        long triggerPeriodMs = 0;
+        /** How long each simulated press is held in ms. */
+        long triggerHoldMs = 2000;
+        /** Time after connect at which the reader drops the connection; 0 never disconnects. */
+        long disconnectAfterMs = 0;
+        /** Seed for the random generator, for repeatable runs. */
+        long seed = 42;
+    }
+
+    private final Config config;
+    private final String hostName;
+    private final Random random;
+    private final char[] epcPrefix;
+    private volatile Listener listener;
+    private volatile boolean connected;
+    private volatile boolean inventoryRunning;
+    private Thread generator;
+
+    private volatile long generatedReads;
+    private volatile long deliveredBatches;
+    private volatile long inventoryNanos;
+
+    /**
+     * @param hostName Host name reported for the simulated reader.
+     * @param config Simulation parameters.
+     */
+    SimulatedReaderPort(String hostName, Config config) {
+        this.hostName = hostName;
+        this.config = config;
+        this.random = new Random(config.seed);
+        this.epcPrefix = String.format(Locale.US, "%016X", random.nextLong()).toCharArray();
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized boolean connect() {
+        if (connected) return true;
+        connected = true;
+        generator = new Thread(this::generateLoop, "SimulatedReader");
+        generator.setDaemon(true);
+        generator.start();
+        return true;
+    }
+
+    @Override
+    public void disconnect() {
+        Thread thread;
+        synchronized (this) {
+            if (!connected) return;
+            connected = false;
+            thread = generator;
+            generator = null;
+        }
+        LockSupport.unpark(thread);
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public String getHostName() {
+        return hostName;
+    }
+
+    @Override
+    public void startInventory() {
+        if (!connected || inventoryRunning) return;
+        inventoryRunning = true;
+        Listener l = listener;
+        if (l != null) l.onInventoryStarted();
+    }
+
+    @Override
+    public void stopInventory() {
+        if (!inventoryRunning) return;
+        inventoryRunning = false;
+        Listener l = listener;
+        if (l != null) l.onInventoryStopped();
+    }
+
+    private void generateLoop() {
+        long start = System.nanoTime();
+        long last = start;
+        double owedReads = 0;
+        boolean triggerDown = false;
+        while (connected) {
+            LockSupport.parkNanos(TICK_NANOS);
+            long now = System.nanoTime();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(now - start);
+
+            if (config.disconnectAfterMs > 0 && elapsedMs >= config.disconnectAfterMs) {
+                inventoryRunning = false;
+                connected = false;
+                Listener l = listener;
+                if (l != null) l.onDisconnected();
+                break;
+            }
+            if (config.triggerPeriodMs > 0) {
+                boolean shouldBeDown = elapsedMs % config.triggerPeriodMs < config.triggerHoldMs;
+                if (shouldBeDown != triggerDown) {
+                    triggerDown = shouldBeDown;
+                    Listener l = listener;
+                    if (l != null) l.onTrigger(shouldBeDown);
+                }
+            }
+            if (inventoryRunning) {
+                inventoryNanos += now - last;
+                owedReads += config.readsPerSecond * ((now - last) / 1e9);
+                int reads = (int) owedReads;
+                owedReads -= reads;
+                emit(reads);
+            } else {
+                owedReads = 0;
+            }
+            last = now;
+        }
+    }
+
+    private void emit(int reads) {
+        while (reads > 0) {
+            int n = Math.min(reads, config.batchSize);
+            TagData[] batch = new TagData[n];
+            for (int i = 0; i < n; i++) {
+                batch[i] = nextRead();
+            }
+            reads -= n;
+            generatedReads += n;
+            deliveredBatches++;
+            Listener l = listener;
+            if (l != null) l.onTags(batch);
+        }
+    }
+
+    private TagData nextRead() {
+        TagData tag = new TagData();
+        tag.setTagID(epcFor(random.nextInt(config.population)));
+        float rssi = (float) (config.rssiMean + random.nextGaussian() * config.rssiStdDev);
+        tag.setPeakRSSI((short) Math.max(-100, Math.min(-10, Math.round(rssi))));
+        tag.setAntennaID((short) (1 + random.nextInt(Math.max(1, config.antennaCount))));
+        return tag;
+    }
+
+    /**
+     * @param index Tag index within the population.
+     * @return 96-bit EPC for the tag: a per-run prefix in the upper 64 bits and the index below.
+     */
+    private String epcFor(int index) {
+        char[] epc = new char[24];
+        System.arraycopy(epcPrefix, 0, epc, 0, 16);
+        for (int i = 23; i >= 16; i--) {
+            epc[i] = HEX[index & 0xF];
+            index >>>= 4;
+        }
+        return new String(epc);
+    }
+
+    /**
+     * @return Reads generated, batches delivered and the achieved read rate.
+     */
+    String describe() {
+        double seconds = inventoryNanos / 1e9;
+        return String.format(Locale.US, "simulator %s: %d reads in %d batches, %.0f reads/s over %.1f s inventory",
+                hostName, generatedReads, deliveredBatches, seconds > 0 ? generatedReads / seconds : 0, seconds);
+    }
+}
@@ -0,0 +1,204 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import com.zebra.rfid.api3.TagData;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Bounded, preallocated ring buffer that hands tag batches from the SDK callback thread to a
+ * dedicated consumer thread.
+ * <p>
+ * Producers claim a slot with a single CAS on the tail sequence and publish it through a
+ * per-slot sequence number, so any number of SDK threads may offer concurrently while one
+ * consumer drains. When the ring is full the batch is dropped and counted instead of blocking
+ * the reader callback.
+ */
+class TagBatchQueue {
+    private static final String TAG = "TagBatchQueue";
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**
+     * How the consumer thread waits when the ring is empty.
+     */
+    enum WaitStrategy {
+        /** Busy-spin. Lowest latency, burns a core. */
+        SPIN,
+        /** Spin briefly, then {@link Thread#yield()}. */
+        YIELD,
+        /** Spin briefly, then park until a producer signals. */
+        PARK
+    }
+
+    /**
+     * Receives batches on the consumer thread.
+     */
+    interface Sink {
+        void onTagBatch(TagData[] batch);
+    }
+
+    private final int mask;
+    private final AtomicReferenceArray<TagData[]> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile int maxDepth;
+
+    private volatile WaitStrategy waitStrategy;
+    private volatile boolean consumerParked;
+    private volatile boolean running;
+    private volatile Thread consumer;
+
+    /**
+     * Creates a ring with the given capacity.
+     * @param capacity Number of batches the ring can hold, rounded up to a power of two.
+     * @param waitStrategy Initial consumer wait strategy.
+     */
+    TagBatchQueue(int capacity, WaitStrategy waitStrategy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        slots = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Starts the consumer thread.
+     * @param sink Callback invoked for each batch on the consumer thread.
+     */
+    synchronized void start(Sink sink) {
+        if (running) return;
+        running = true;
+        consumer = new Thread(() -> consumeLoop(sink), "TagBatchConsumer");
+        consumer.start();
+    }
+
+    /**
+     * Stops the consumer thread. Batches still in the ring are discarded.
+     */
+    synchronized void stop() {
+        running = false;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+            consumer = null;
+        }
+    }
+
+    /**
+     * Publishes a batch without blocking.
+     * @param batch Tags to deliver.
+     * @return True if queued, false if the ring was full and the batch was dropped.
+     */
+    boolean offer(TagData[] batch) {
+        offered.incrementAndGet();
+        long seq;
+        while (true) {
+            seq = tail.get();
+            int index = (int) seq & mask;
+            long slotSeq = sequences.get(index);
+            if (slotSeq == seq) {
+                if (tail.compareAndSet(seq, seq + 1)) break;
+            } else if (slotSeq < seq) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+        int index = (int) seq & mask;
+        slots.lazySet(index, batch);
+        sequences.set(index, seq + 1);
+        int depth = (int) (seq + 1 - head);
+        if (depth > maxDepth) maxDepth = depth;
+        if (consumerParked) LockSupport.unpark(consumer);
+        return true;
+    }
+
+    private TagData[] poll() {
+        long seq = head;
+        int index = (int) seq & mask;
+        if (sequences.get(index) != seq + 1) return null;
+        TagData[] batch = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.set(index, seq + mask + 1);
+        head = seq + 1;
+        return batch;
+    }
+
+    private void consumeLoop(Sink sink) {
+        int idle = 0;
+        while (running) {
+            TagData[] batch = poll();
+            if (batch != null) {
+                idle = 0;
+                try {
+                    sink.onTagBatch(batch);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error delivering tag batch", e);
+                }
+                continue;
+            }
+            idle = waitForData(idle);
+        }
+    }
+
+    private int waitForData(int idle) {
+        WaitStrategy strategy = waitStrategy;
+        if (strategy == WaitStrategy.SPIN || idle < SPIN_TRIES) return idle + 1;
+        if (strategy == WaitStrategy.YIELD) {
+            Thread.yield();
+            return idle;
+        }
+        consumerParked = true;
+        if (sequences.get((int) head & mask) != head + 1 && running) {
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        consumerParked = false;
+        return idle;
+    }
+
+    /**
+     * Changes how the consumer waits for data; takes effect on its next idle cycle.
+     * @param strategy New wait strategy.
+     */
+    void setWaitStrategy(WaitStrategy strategy) {
+        waitStrategy = strategy;
+    }
+
+    /**
+     * @return Batches currently queued and not yet consumed.
+     */
+    int depth() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * @return Highest queue depth observed since creation.
+     */
+    int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return Total batches offered, including dropped ones.
+     */
+    long offeredCount() {
+        return offered.get();
+    }
+
+    /**
+     * @return Batches rejected because the ring was full.
+     */
+    long droppedCount() {
+        return dropped.get();
+    }
+}
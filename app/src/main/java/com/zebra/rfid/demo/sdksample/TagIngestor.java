@@ -0,0 +1,202 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import com.zebra.rfid.api3.RFIDReader;
+import com.zebra.rfid.api3.RfidReadEvents;
+import com.zebra.rfid.api3.TagData;
+
+import java.util.Locale;
+
+
+/**
+ * Turns reader read notifications into tag batches on the {@link TagBatchQueue} or another {@link Sink}.
+ * <p>
+ * Three ingestion modes are supported:
+ * <ul>
+ *   <li>{@link Mode#FIXED_PULL}: one {@code getReadTags(100)} per notification (original behaviour).</li>
+ *   <li>{@link Mode#PUSH}: tag data attached to the read event, no pull round trip.</li>
+ *   <li>{@link Mode#ADAPTIVE_DRAIN}: pull until the reader buffer is empty, sizing each pull from
+ *   the recently observed drain rate.</li>
+ * </ul>
+ * Per-mode counters (tags, pulls, callback time) are kept so deployments can compare throughput
+ * and how long each mode holds the SDK callback thread. Callback time runs from the start of
+ * the read notification until its last batch is queued; it does not include the time the read
+ * spent in the reader or the SDK before the notification. All methods except the stats
+ * accessors are called on the SDK callback thread; the counters are updated and read under the
+ * ingestor's lock, once per notification.
+ */
+class TagIngestor {
+    private static final String TAG = "TagIngestor";
+    static final int FIXED_BATCH = 100;
+    private static final int MIN_BATCH = 16;
+    private static final int MAX_BATCH = 1024;
+    private static final int MAX_PULLS_PER_EVENT = 32;
+
+    /**
+     * Tag ingestion mode.
+     */
+    enum Mode {
+        FIXED_PULL,
+        PUSH,
+        ADAPTIVE_DRAIN
+    }
+
+    /**
+     * Receives the batches read from the reader.
+     */
+    interface Sink {
+        /**
+         * @param batch Tags read from the reader.
+         * @return False if the batch was dropped.
+         */
+        boolean offer(TagData[] batch);
+    }
+
+    private final Sink queue;
+    private volatile Mode mode = Mode.FIXED_PULL;
+    private volatile int adaptiveBatch = FIXED_BATCH;
+    private float drainedPerEvent = FIXED_BATCH;
+    /** Pulls made by the notification in progress; callback thread only. */
+    private int eventPulls;
+
+    private final long[] tagCount = new long[Mode.values().length];
+    private final long[] pullCount = new long[Mode.values().length];
+    private final long[] eventCount = new long[Mode.values().length];
+    private final long[] callbackNanos = new long[Mode.values().length];
+    private final long[] maxCallbackNanos = new long[Mode.values().length];
+    private final long[] firstEventNanos = new long[Mode.values().length];
+    private final long[] lastEventNanos = new long[Mode.values().length];
+
+    /**
+     * @param queue Queue that receives every batch read from the reader.
+     */
+    TagIngestor(TagBatchQueue queue) {
+        this((Sink) queue::offer);
+    }
+
+    /**
+     * @param sink Receives every batch read from the reader.
+     */
+    TagIngestor(Sink sink) {
+        this.queue = sink;
+    }
+
+    /**
+     * Selects the ingestion mode. The caller must also apply {@link #attachTagData()} to the reader.
+     * @param mode New mode.
+     */
+    void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return Value for {@code Events.setAttachTagDataWithReadEvent} in the current mode.
+     */
+    boolean attachTagData() {
+        return mode == Mode.PUSH;
+    }
+
+    /**
+     * Handles one read notification.
+     * @param reader Reader that raised the event.
+     * @param event The read event, carrying tag data in push mode.
+     */
+    void onReadEvent(RFIDReader reader, RfidReadEvents event) {
+        Mode current = mode;
+        long start = System.nanoTime();
+        eventPulls = 0;
+        int tags;
+        switch (current) {
+            case PUSH:
+                tags = pushAttached(event);
+                break;
+            case ADAPTIVE_DRAIN:
+                tags = drain(reader);
+                break;
+            default:
+                tags = publish(reader.Actions.getReadTags(FIXED_BATCH), current);
+                break;
+        }
+        long elapsed = System.nanoTime() - start;
+        int i = current.ordinal();
+        synchronized (this) {
+            if (firstEventNanos[i] == 0) firstEventNanos[i] = start;
+            lastEventNanos[i] = start + elapsed;
+            eventCount[i]++;
+            tagCount[i] += tags;
+            pullCount[i] += eventPulls;
+            callbackNanos[i] += elapsed;
+            if (elapsed > maxCallbackNanos[i]) maxCallbackNanos[i] = elapsed;
+        }
+    }
+
+    private int pushAttached(RfidReadEvents event) {
+        if (event == null || event.getReadEventData() == null) return 0;
+        TagData tag = event.getReadEventData().tagData;
+        if (tag == null) return 0;
+        return publish(new TagData[]{tag}, Mode.PUSH);
+    }
+
+    private int drain(RFIDReader reader) {
+        int total = 0;
+        for (int pulls = 0; pulls < MAX_PULLS_PER_EVENT; pulls++) {
+            int batch = adaptiveBatch;
+            TagData[] tags = reader.Actions.getReadTags(batch);
+            int count = publish(tags, Mode.ADAPTIVE_DRAIN);
+            total += count;
+            if (count < batch) break;
+            adaptiveBatch = Math.min(MAX_BATCH, batch * 2);
+        }
+        drainedPerEvent += (total - drainedPerEvent) * 0.25f;
+        int target = Integer.highestOneBit(Math.max(1, (int) (drainedPerEvent * 1.5f)) * 2 - 1);
+        adaptiveBatch = Math.max(MIN_BATCH, Math.min(MAX_BATCH, Math.max(target, adaptiveBatch / 2)));
+        return total;
+    }
+
+    private int publish(TagData[] tags, Mode source) {
+        if (source != Mode.PUSH) eventPulls++;
+        if (tags == null || tags.length == 0) return 0;
+        if (!queue.offer(tags)) {
+            Log.w(TAG, "Tag queue full, dropped batch of " + tags.length);
+        }
+        return tags.length;
+    }
+
+    /**
+     * Clears the counters of every mode.
+     */
+    synchronized void resetStats() {
+        for (int i = 0; i < tagCount.length; i++) {
+            tagCount[i] = 0;
+            pullCount[i] = 0;
+            eventCount[i] = 0;
+            callbackNanos[i] = 0;
+            maxCallbackNanos[i] = 0;
+            firstEventNanos[i] = 0;
+            lastEventNanos[i] = 0;
+        }
+    }
+
+    /**
+     * Summarizes throughput and callback time per mode.
+     * @return One line per mode that has seen events.
+     */
+    synchronized String describeStats() {
+        StringBuilder sb = new StringBuilder();
+        for (Mode m : Mode.values()) {
+            int i = m.ordinal();
+            if (eventCount[i] == 0) continue;
+            double seconds = Math.max(1, lastEventNanos[i] - firstEventNanos[i]) / 1e9;
+            sb.append(String.format(Locale.US, "%s: %d tags, %.0f tags/s, %d events, %d pulls, read callback time avg %.1f us max %.1f us%n",
+                    m.name(), tagCount[i], tagCount[i] / seconds, eventCount[i], pullCount[i],
+                    callbackNanos[i] / 1e3 / eventCount[i], maxCallbackNanos[i] / 1e3));
+        }
+        if (mode == Mode.ADAPTIVE_DRAIN) sb.append("adaptive batch=").append(adaptiveBatch);
+        return sb.toString();
+    }
+}
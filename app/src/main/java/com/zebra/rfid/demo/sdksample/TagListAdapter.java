@@ -0,0 +1,106 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+
+
+/**
+ * RecyclerView adapter that shows tag rows newest-first over an append-only {@link TagRowStore}.
+ * <p>
+ * New rows are appended to the end of the store and mapped to adapter position 0 by index
+ * arithmetic, so adding a batch costs O(batch) and is announced as a single range insert
+ * instead of shifting the whole list and rebinding every row. Rows the store reads back from
+ * disk in the background are rebound once they arrive. Must be used on the UI thread.
+ */
+class TagListAdapter extends RecyclerView.Adapter<TagListAdapter.ViewHolder> {
+    private final TagRowStore rows;
+
+    /**
+     * @param rows Backing store for the session's rows.
+     */
+    TagListAdapter(TagRowStore rows) {
+        this.rows = rows;
+        rows.setListener(this::onRowsLoaded);
+    }
+
+    /**
+     * Appends a batch of rows; they appear at the top of the list.
+     * @param newRows Rows in arrival order.
+     */
+    void appendAll(List<String> newRows) {
+        if (newRows.isEmpty()) return;
+        for (String row : newRows) {
+            rows.append(row);
+        }
+        notifyItemRangeInserted(0, newRows.size());
+    }
+
+    /**
+     * Removes all rows.
+     */
+    void clear() {
+        int count = rows.size();
+        if (count == 0) return;
+        rows.clear();
+        notifyItemRangeRemoved(0, count);
+    }
+
+    /**
+     * Releases the backing store; the adapter must not be used afterwards.
+     */
+    void close() {
+        rows.close();
+    }
+
+    /**
+     * Returns the row displayed at an adapter position.
+     * @param position Adapter position, 0 being the newest row.
+     * @return The row text.
+     */
+    String getItem(int position) {
+        return rows.get(rows.size() - 1 - position);
+    }
+
+    private void onRowsLoaded(int firstIndex, int count) {
+        int size = rows.size();
+        int last = Math.min(firstIndex + count, size) - 1;
+        if (last < firstIndex) return;
+        notifyItemRangeChanged(size - 1 - last, last - firstIndex + 1);
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(android.R.layout.simple_list_item_1, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        holder.text.setText(getItem(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    /**
+     * Holds the text view of a single tag row.
+     */
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView text;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            text = itemView.findViewById(android.R.id.text1);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Append-only store of tag list rows with a fixed in-memory window and the full session on disk.
+ * <p>
+ * Every row is written through to a file of fixed 64-byte records (length byte plus up to 63
+ * ASCII characters). The newest rows are also kept as strings in a ring, so the top of the list
+ * binds without touching the file. Older rows are read back in blocks of {@link #BLOCK_ROWS} when
+ * scrolled into view, and the last {@link #CACHED_BLOCKS} blocks are kept decoded.
+ * <p>
+ * File access uses positional channel reads and writes through two fixed buffers on the store's
+ * own thread, never on the caller's: appends are queued and written in batches, and a row whose
+ * block is not cached shows {@link #LOADING} until its block has been read, at which point the
+ * {@link Listener} is told to rebind it. Nothing is memory-mapped, so the store holds the same
+ * heap and native memory however long the session runs. Apart from the listener callbacks, which
+ * run on the executor given to the constructor, the store must be used from a single thread,
+ * normally the UI thread.
+ */
+class TagRowStore {
+    private static final String TAG = "TagRowStore";
+    static final int RECORD_BYTES = 64;
+    static final int BLOCK_ROWS = 256;
+    static final int CACHED_BLOCKS = 8;
+    static final String LOADING = "...";
+    private static final String UNAVAILABLE = "(row unavailable)";
+
+    /**
+     * Told when rows read back from disk are ready to bind.
+     */
+    interface Listener {
+        /**
+         * @param firstIndex Index of the first loaded row in arrival order.
+         * @param count Number of rows loaded.
+         */
+        void onRowsLoaded(int firstIndex, int count);
+    }
+
+    private final File file;
+    private final String[] hotRows;
+    private final Executor callbackExecutor;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TagRowStore");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Listener listener;
+    private int size;
+    private int generation;
+    private final LinkedHashMap<Integer, String[]> blocks = new LinkedHashMap<Integer, String[]>(CACHED_BLOCKS + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+    private final HashSet<Integer> loadingBlocks = new HashSet<>();
+
+    /** Rows appended and not yet handed to the writer, starting at {@link #pendingStart}. Guarded by {@code this}. */
+    private ArrayList<String> pendingRows = new ArrayList<>();
+    private int pendingStart;
+    private boolean flushScheduled;
+    private int writeGeneration;
+    /** Rows below this index are on disk for the current session. Guarded by {@code this}. */
+    private int spilledRows;
+    private volatile boolean spillFailed;
+
+    /** I/O thread only. */
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BLOCK_ROWS * RECORD_BYTES);
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BLOCK_ROWS * RECORD_BYTES);
+    private final char[] decodeBuffer = new char[RECORD_BYTES - 1];
+
+    /**
+     * @param file Backing file; created on first write and deleted by {@link #close()}.
+     * @param hotRowCount Number of newest rows kept in memory.
+     * @param callbackExecutor Runs {@link Listener} callbacks, e.g. the UI thread.
+     */
+    TagRowStore(File file, int hotRowCount, Executor callbackExecutor) {
+        this.file = file;
+        this.hotRows = new String[hotRowCount];
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * @param listener Receiver for loaded rows, or null.
+     */
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Appends a row; it is written to disk in the background.
+     * @param row Row text; characters beyond 63 or outside ASCII are not preserved on disk.
+     */
+    void append(String row) {
+        int index = size++;
+        hotRows[index % hotRows.length] = row;
+        if (spillFailed) return;
+        synchronized (this) {
+            pendingRows.add(row);
+            if (flushScheduled) return;
+            flushScheduled = true;
+        }
+        io.execute(this::flush);
+    }
+
+    /**
+     * @param index Row index in arrival order.
+     * @return The row text, or {@link #LOADING} while its block is read from disk.
+     */
+    String get(int index) {
+        if (index >= size - hotRows.length) return hotRows[index % hotRows.length];
+        int block = index / BLOCK_ROWS;
+        String[] rows = blocks.get(block);
+        int offset = index - block * BLOCK_ROWS;
+        if (rows != null && offset < rows.length) return rows[offset];
+        if (spillFailed) return UNAVAILABLE;
+        if (loadingBlocks.add(block)) {
+            int loadGeneration = generation;
+            io.execute(() -> load(block, loadGeneration));
+        }
+        return LOADING;
+    }
+
+    /**
+     * @return Number of rows in the session.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Starts a new session. The file is kept and overwritten from the start.
+     */
+    void clear() {
+        Arrays.fill(hotRows, null);
+        size = 0;
+        generation++;
+        blocks.clear();
+        loadingBlocks.clear();
+        synchronized (this) {
+            pendingRows.clear();
+            pendingStart = 0;
+            spilledRows = 0;
+            writeGeneration++;
+        }
+        spillFailed = false;
+    }
+
+    /**
+     * Closes and deletes the backing file once queued writes have finished, and stops the I/O
+     * thread. The store must not be used afterwards.
+     */
+    void close() {
+        if (io.isShutdown()) return;
+        clear();
+        listener = null;
+        io.execute(() -> {
+            try {
+                if (channel != null) channel.close();
+                if (raf != null) raf.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Error closing row store", e);
+            }
+            channel = null;
+            raf = null;
+            if (file.exists() && !file.delete()) Log.w(TAG, "Could not delete " + file);
+        });
+        io.shutdown();
+    }
+
+    /**
+     * I/O thread. Writes the queued rows in runs of up to one buffer.
+     */
+    private void flush() {
+        ArrayList<String> batch;
+        int start;
+        int batchGeneration;
+        synchronized (this) {
+            flushScheduled = false;
+            batch = pendingRows;
+            start = pendingStart;
+            batchGeneration = writeGeneration;
+            pendingRows = new ArrayList<>();
+            pendingStart = start + batch.size();
+        }
+        try {
+            FileChannel out = channel();
+            for (int from = 0; from < batch.size(); from += BLOCK_ROWS) {
+                int to = Math.min(batch.size(), from + BLOCK_ROWS);
+                writeBuffer.clear();
+                for (int i = from; i < to; i++) {
+                    encode(batch.get(i));
+                }
+                writeBuffer.flip();
+                long position = (long) (start + from) * RECORD_BYTES;
+                while (writeBuffer.hasRemaining()) {
+                    position += out.write(writeBuffer, position);
+                }
+            }
+            synchronized (this) {
+                if (batchGeneration == writeGeneration) spilledRows = Math.max(spilledRows, start + batch.size());
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing rows", e);
+            spillFailed = true;
+        }
+    }
+
+    /**
+     * I/O thread. Reads and decodes a block, then hands it to the UI.
+     */
+    private void load(int block, int loadGeneration) {
+        int first = block * BLOCK_ROWS;
+        int count;
+        synchronized (this) {
+            count = Math.min(BLOCK_ROWS, spilledRows - first);
+        }
+        String[] rows = new String[Math.max(0, count)];
+        try {
+            if (count > 0) {
+                FileChannel in = channel();
+                readBuffer.clear();
+                readBuffer.limit(count * RECORD_BYTES);
+                long position = (long) first * RECORD_BYTES;
+                while (readBuffer.hasRemaining()) {
+                    int read = in.read(readBuffer, position);
+                    if (read < 0) break;
+                    position += read;
+                }
+                for (int i = 0; i < count; i++) {
+                    rows[i] = decode(i * RECORD_BYTES);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading row block " + block, e);
+            Arrays.fill(rows, UNAVAILABLE);
+        }
+        callbackExecutor.execute(() -> {
+            if (loadGeneration != generation) return;
+            loadingBlocks.remove(block);
+            if (rows.length == 0) return;
+            blocks.put(block, rows);
+            Listener l = listener;
+            if (l != null) l.onRowsLoaded(first, rows.length);
+        });
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+        }
+        return channel;
+    }
+
+    private void encode(String row) {
+        int start = writeBuffer.position();
+        int length = Math.min(row.length(), RECORD_BYTES - 1);
+        writeBuffer.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            char c = row.charAt(i);
+            writeBuffer.put((byte) (c < 0x80 ? c : '?'));
+        }
+        writeBuffer.position(start + RECORD_BYTES);
+    }
+
+    private String decode(int offset) {
+        int length = readBuffer.get(offset);
+        for (int i = 0; i < length; i++) {
+            decodeBuffer[i] = (char) readBuffer.get(offset + 1 + i);
+        }
+        return new String(decodeBuffer, 0, length);
+    }
+}
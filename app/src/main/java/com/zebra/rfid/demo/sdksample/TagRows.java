@@ -0,0 +1,34 @@
+package com.zebra.rfid.demo.sdksample;
+
+
+/**
+ * Text the activity builds for the tag list and the RFID status line. Kept free of Android
+ * dependencies so the benchmarks measure the same code.
+ */
+final class TagRows {
+
+    private TagRows() {
+    }
+
+    /**
+     * @param tagId EPC of a newly seen tag.
+     * @param rssi Peak RSSI of the read.
+     * @return The row shown in the tag list.
+     */
+    static String format(String tagId, short rssi) {
+        return tagId + " (RSSI: " + rssi + ")";
+    }
+
+    /**
+     * Replaces everything after the first line of the status text, which holds the connection
+     * state, with the tag status.
+     * @param status Current status text.
+     * @param tagStatus Unique tag count and, if loaded, the manifest summary.
+     * @return The new status text.
+     */
+    static String withTagStatus(String status, String tagStatus) {
+        int newline = status.indexOf('\n');
+        String currentStatus = newline >= 0 ? status.substring(0, newline) : status;
+        return currentStatus + "\n" + tagStatus;
+    }
+}
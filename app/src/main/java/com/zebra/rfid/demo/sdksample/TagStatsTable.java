@@ -0,0 +1,122 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Per-tag aggregate statistics stored as struct-of-arrays, indexed by the dense ordinal that
+ * {@link EpcSet} assigns to each tag.
+ * <p>
+ * For every read the table keeps the read count, RSSI minimum, maximum and exponential moving
+ * average, first and last seen timestamps and the antenna of the last read. Recording a read is
+ * a handful of stores with no allocation. The columns live in {@link ColumnChunks} outside the
+ * Java heap and grow a chunk at a time as new ordinals appear.
+ * This class is not thread-safe; callers guard it together with the owning {@link EpcSet}.
+ */
+class TagStatsTable {
+    /** Weight of the newest sample in the RSSI moving average. */
+    static final float RSSI_EMA_ALPHA = 0.2f;
+
+    private static final int ROW_BYTES = 30;
+    private static final int FIRST_SEEN = 0;
+    private static final int LAST_SEEN = ColumnChunks.ROWS * 8;
+    private static final int READ_COUNT = ColumnChunks.ROWS * 16;
+    private static final int RSSI_EMA = ColumnChunks.ROWS * 20;
+    private static final int RSSI_MIN = ColumnChunks.ROWS * 24;
+    private static final int RSSI_MAX = ColumnChunks.ROWS * 26;
+    private static final int ANTENNA = ColumnChunks.ROWS * 28;
+
+    private final ColumnChunks columns;
+    private int size;
+
+    /**
+     * @param expectedTags Initial column capacity.
+     */
+    TagStatsTable(int expectedTags) {
+        columns = new ColumnChunks(ROW_BYTES, Math.max(16, expectedTags));
+    }
+
+    /**
+     * Records one read for a tag.
+     * @param ordinal Tag ordinal from {@link EpcSet#add(String)}.
+     * @param rssi Peak RSSI of the read in dBm.
+     * @param antennaId Antenna that reported the read.
+     * @param timestampMs Read time in milliseconds.
+     */
+    void record(int ordinal, short rssi, short antennaId, long timestampMs) {
+        if (ordinal >= size) {
+            if (ordinal >= columns.capacity()) columns.ensureRows(ordinal + 1);
+            size = ordinal + 1;
+        }
+        ByteBuffer chunk = columns.chunk(ordinal);
+        int slot = ColumnChunks.slot(ordinal);
+        // Rows past the size always read 0: new chunks are zeroed and clear() resets the rest.
+        int count = chunk.getInt(READ_COUNT + (slot << 2));
+        chunk.putInt(READ_COUNT + (slot << 2), count + 1);
+        if (count == 0) {
+            chunk.putShort(RSSI_MIN + (slot << 1), rssi);
+            chunk.putShort(RSSI_MAX + (slot << 1), rssi);
+            chunk.putFloat(RSSI_EMA + (slot << 2), rssi);
+            chunk.putLong(FIRST_SEEN + (slot << 3), timestampMs);
+        } else {
+            if (rssi < chunk.getShort(RSSI_MIN + (slot << 1))) chunk.putShort(RSSI_MIN + (slot << 1), rssi);
+            if (rssi > chunk.getShort(RSSI_MAX + (slot << 1))) chunk.putShort(RSSI_MAX + (slot << 1), rssi);
+            float ema = chunk.getFloat(RSSI_EMA + (slot << 2));
+            chunk.putFloat(RSSI_EMA + (slot << 2), ema + (rssi - ema) * RSSI_EMA_ALPHA);
+        }
+        chunk.putLong(LAST_SEEN + (slot << 3), timestampMs);
+        chunk.putShort(ANTENNA + (slot << 1), antennaId);
+    }
+
+    /**
+     * Resets all rows while keeping the allocated columns.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            columns.chunk(i).putInt(READ_COUNT + (ColumnChunks.slot(i) << 2), 0);
+        }
+        size = 0;
+    }
+
+    /**
+     * @return Number of rows, i.e. the highest recorded ordinal plus one.
+     */
+    int size() {
+        return size;
+    }
+
+    int getReadCount(int ordinal) {
+        return columns.chunk(ordinal).getInt(READ_COUNT + (ColumnChunks.slot(ordinal) << 2));
+    }
+
+    short getRssiMin(int ordinal) {
+        return columns.chunk(ordinal).getShort(RSSI_MIN + (ColumnChunks.slot(ordinal) << 1));
+    }
+
+    short getRssiMax(int ordinal) {
+        return columns.chunk(ordinal).getShort(RSSI_MAX + (ColumnChunks.slot(ordinal) << 1));
+    }
+
+    float getRssiEma(int ordinal) {
+        return columns.chunk(ordinal).getFloat(RSSI_EMA + (ColumnChunks.slot(ordinal) << 2));
+    }
+
+    long getFirstSeenMs(int ordinal) {
+        return columns.chunk(ordinal).getLong(FIRST_SEEN + (ColumnChunks.slot(ordinal) << 3));
+    }
+
+    long getLastSeenMs(int ordinal) {
+        return columns.chunk(ordinal).getLong(LAST_SEEN + (ColumnChunks.slot(ordinal) << 3));
+    }
+
+    short getAntenna(int ordinal) {
+        return columns.chunk(ordinal).getShort(ANTENNA + (ColumnChunks.slot(ordinal) << 1));
+    }
+
+    /**
+     * @return Native memory held by the columns in bytes (30 bytes per row of capacity).
+     */
+    long offHeapBytes() {
+        return columns.bytes();
+    }
+}
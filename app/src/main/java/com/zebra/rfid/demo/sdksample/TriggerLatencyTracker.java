@@ -0,0 +1,125 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+
+/**
+ * Timestamps the inventory lifecycle from trigger press to the first rendered tag row and feeds
+ * the gaps into {@link LatencyHistogram}s.
+ * <p>
+ * Marks are a {@link System#nanoTime()} read and a volatile store. Each mark after the first
+ * only counts once per cycle, so per-read and per-frame calls are cheap no-ops after the first
+ * one. An inventory started from the UI button has no trigger mark; its cycle begins at
+ * {@link #markPerform()} and only the later stages are recorded.
+ */
+class TriggerLatencyTracker {
+    private final LatencyHistogram triggerToPerform = new LatencyHistogram("trigger->perform");
+    private final LatencyHistogram performToStart = new LatencyHistogram("perform->start event");
+    private final LatencyHistogram startToFirstRead = new LatencyHistogram("start event->first read");
+    private final LatencyHistogram firstReadToRow = new LatencyHistogram("first read->first row");
+    private final LatencyHistogram triggerToRow = new LatencyHistogram("trigger->first row");
+    private final LatencyHistogram[] all = {triggerToPerform, performToStart, startToFirstRead, firstReadToRow, triggerToRow};
+
+    private volatile long triggerNanos;
+    private volatile long performNanos;
+    private volatile long startNanos;
+    private volatile long firstReadNanos;
+    private volatile boolean rowPending;
+
+    /**
+     * Handheld trigger pressed; starts a new cycle.
+     */
+    void markTrigger() {
+        triggerNanos = System.nanoTime();
+        performNanos = 0;
+        startNanos = 0;
+        firstReadNanos = 0;
+        rowPending = false;
+    }
+
+    /**
+     * Inventory perform is about to be issued.
+     */
+    void markPerform() {
+        long now = System.nanoTime();
+        long trigger = triggerNanos;
+        if (trigger != 0 && performNanos == 0) {
+            triggerToPerform.recordNanos(now - trigger);
+        } else {
+            triggerNanos = 0;
+        }
+        startNanos = 0;
+        firstReadNanos = 0;
+        rowPending = false;
+        performNanos = now;
+    }
+
+    /**
+     * INVENTORY_START_EVENT received.
+     */
+    void markInventoryStarted() {
+        long perform = performNanos;
+        if (perform == 0 || startNanos != 0) return;
+        long now = System.nanoTime();
+        startNanos = now;
+        performToStart.recordNanos(now - perform);
+    }
+
+    /**
+     * A read event arrived; only the first of the cycle is recorded.
+     */
+    void markRead() {
+        if (firstReadNanos != 0 || performNanos == 0) return;
+        long now = System.nanoTime();
+        firstReadNanos = now;
+        long start = startNanos;
+        if (start != 0) startToFirstRead.recordNanos(now - start);
+        rowPending = true;
+    }
+
+    /**
+     * New rows reached the tag list; only the first frame after the first read is recorded.
+     */
+    void markRowsRendered() {
+        if (!rowPending) return;
+        rowPending = false;
+        long now = System.nanoTime();
+        firstReadToRow.recordNanos(now - firstReadNanos);
+        long trigger = triggerNanos;
+        if (trigger != 0) triggerToRow.recordNanos(now - trigger);
+    }
+
+    /**
+     * @return One summary line per stage.
+     */
+    String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (LatencyHistogram histogram : all) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(histogram.describe());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the summaries and the raw bucket counts of every stage to a text file.
+     * @param dir Directory for the file.
+     * @return The file written.
+     * @throws IOException If the file cannot be written.
+     */
+    File dump(File dir) throws IOException {
+        File file = new File(dir, String.format(Locale.US, "trigger_latency_%d.txt", System.currentTimeMillis()));
+        StringBuilder sb = new StringBuilder();
+        for (LatencyHistogram histogram : all) {
+            histogram.dumpBuckets(sb);
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(sb.toString());
+        }
+        return file;
+    }
+}
@@ -0,0 +1,107 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EpcFilterTest {
+    private static TagData[] tags(String... epcs) {
+        TagData[] batch = new TagData[epcs.length];
+        for (int i = 0; i < epcs.length; i++) {
+            batch[i] = new TagData();
+            batch[i].setTagID(epcs[i]);
+        }
+        return batch;
+    }
+
+    private static void assertRejected(String spec) {
+        try {
+            EpcFilter.compile(spec);
+            fail("Accepted " + spec);
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void emptySpecPassesEverything() {
+        EpcFilter filter = EpcFilter.compile("  ");
+        TagData[] batch = tags("E2801160000000000000000A");
+
+        assertTrue(filter.isEmpty());
+        assertEquals("", filter.getSpec());
+        assertTrue(filter.matches("300000000000000000000001"));
+        assertSame(batch, filter.apply(batch));
+        assertEquals("epc filter: off", filter.describe());
+    }
+
+    @Test
+    public void bitLengthMatchesOnlyTheLeadingBitsOfTheLastDigit() {
+        // 22 bits leave the leading 2 bits of the A (10xx), so 8 to B match.
+        EpcFilter filter = EpcFilter.compile("30340a/22");
+
+        assertEquals("30340A/22", filter.getSpec());
+        assertTrue(filter.matches("303408000000000000000000"));
+        assertTrue(filter.matches("30340B000000000000000000"));
+        assertFalse(filter.matches("303407000000000000000000"));
+        assertFalse(filter.matches("30340C000000000000000000"));
+        assertFalse(filter.matches("30340"));
+    }
+
+    @Test
+    public void fullNibbleBitLengthIsTheSameAsNone() {
+        EpcFilter filter = EpcFilter.compile("E28/12");
+
+        assertEquals("E28", filter.getSpec());
+        assertTrue(filter.matches("E28011600000000000000000"));
+        assertFalse(filter.matches("E29011600000000000000000"));
+    }
+
+    @Test
+    public void overlappingPrefixesMatchInEitherOrder() {
+        for (String spec : new String[]{"30, 3034257BF4", "3034257BF4, 30", "3/1, 30340A/22", "30340A/22, 3/1"}) {
+            EpcFilter filter = EpcFilter.compile(spec);
+            boolean shortIsThree = spec.contains("3/1");
+            assertTrue(spec, filter.matches("3034257BF4000000000000000"));
+            assertTrue(spec, filter.matches("30340A000000000000000000"));
+            assertTrue(spec, filter.matches("30FF00000000000000000000"));
+            assertEquals(spec, shortIsThree, filter.matches("7FFF00000000000000000000"));
+            assertFalse(spec, filter.matches("E28011600000000000000000"));
+        }
+    }
+
+    @Test
+    public void invalidSpecsAreRejected() {
+        assertRejected("30G4");
+        assertRejected("30/");
+        assertRejected("30/x");
+        assertRejected("30/0");
+        assertRejected("30/4");
+        assertRejected("30/9");
+        assertRejected("E280, 30/-1");
+    }
+
+    @Test
+    public void applyKeepsMatchesAndCountsHits() {
+        EpcFilter filter = EpcFilter.compile("E280, 3034");
+        TagData[] batch = tags("E2801160000000000000000A", "300000000000000000000001", "303400000000000000000002", null);
+
+        TagData[] kept = filter.apply(batch);
+        assertEquals(2, kept.length);
+        assertEquals("E2801160000000000000000A", kept[0].getTagID());
+        assertEquals("303400000000000000000002", kept[1].getTagID());
+
+        TagData[] all = tags("E28000000000000000000001");
+        assertSame(all, filter.apply(all));
+        assertNull(filter.apply(tags("100000000000000000000000", "200000000000000000000000")));
+
+        assertEquals("epc filter [E280,3034] on host: 3/7 reads passed on host (42.9%)", filter.describe());
+    }
+}
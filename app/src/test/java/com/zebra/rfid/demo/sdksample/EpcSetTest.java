@@ -0,0 +1,94 @@
+package com.zebra.rfid.demo.sdksample;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EpcSetTest {
+
+    @Test
+    public void addReturnsNewOrdinalThenNegativeForRepeat() {
+        EpcSet set = new EpcSet(4);
+        assertEquals(0, set.add("3034257BF400000000000001"));
+        assertEquals(1, set.add("3034257BF400000000000002"));
+        assertEquals(-1, set.add("3034257BF400000000000001"));
+        assertEquals(-2, set.add("3034257BF400000000000002"));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void leadingZerosAreSignificant() {
+        EpcSet set = new EpcSet(4);
+        int a = set.add("A");
+        int b = set.add("0A");
+        int c = set.add("000A");
+        assertEquals(0, a);
+        assertEquals(1, b);
+        assertEquals(2, c);
+        assertEquals("A", set.get(a));
+        assertEquals("0A", set.get(b));
+        assertEquals("000A", set.get(c));
+        assertEquals("00000000", set.get(set.add("00000000")));
+    }
+
+    @Test
+    public void oddLengthRoundTrips() {
+        EpcSet set = new EpcSet(4);
+        String odd = "3034257BF4000000000000001";
+        int ordinal = set.add(odd);
+        assertEquals(odd, set.get(ordinal));
+        assertEquals(ordinal, set.indexOf(odd));
+        assertEquals(-1, set.indexOf(odd.substring(1)));
+    }
+
+    @Test
+    public void fullWidthAndLongerIdsAreKeptApart() {
+        EpcSet set = new EpcSet(4);
+        String max = "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF";
+        String longer = max + "0";
+        int a = set.add(max);
+        int b = set.add(longer);
+        assertTrue(a >= 0);
+        assertTrue(b >= 0);
+        assertEquals(max, set.get(a));
+        assertEquals(longer, set.get(b));
+        assertEquals(-(b + 1), set.add(longer));
+        assertEquals(b, set.indexOf(longer));
+    }
+
+    @Test
+    public void nonHexAndEmptyIdsFallBackToOverflow() {
+        EpcSet set = new EpcSet(4);
+        int text = set.add("not-an-epc");
+        int empty = set.add("");
+        assertEquals("not-an-epc", set.get(text));
+        assertEquals("", set.get(empty));
+        assertTrue(set.contains("not-an-epc"));
+        assertEquals(-(text + 1), set.add("not-an-epc"));
+    }
+
+    @Test
+    public void caseDoesNotCreateASecondEntry() {
+        EpcSet set = new EpcSet(4);
+        int ordinal = set.add("e280116060000209");
+        assertEquals(-(ordinal + 1), set.add("E280116060000209"));
+        assertEquals("E280116060000209", set.get(ordinal));
+    }
+
+    @Test
+    public void growsAndClears() {
+        EpcSet set = new EpcSet(4);
+        for (int i = 0; i < 50_000; i++) {
+            assertEquals(i, set.add(String.format("3034%020X", i)));
+        }
+        for (int i = 0; i < 50_000; i += 997) {
+            assertEquals(i, set.indexOf(String.format("3034%020X", i)));
+        }
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(String.format("3034%020X", 7)));
+        assertEquals(0, set.add(String.format("3034%020X", 7)));
+    }
+}
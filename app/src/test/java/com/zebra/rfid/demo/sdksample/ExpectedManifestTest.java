@@ -0,0 +1,67 @@
+package com.zebra.rfid.demo.sdksample;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExpectedManifestTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String text) throws IOException {
+        File file = folder.newFile("manifest.csv");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.US_ASCII));
+        }
+        return file;
+    }
+
+    @Test
+    public void leadingWhitespaceIsTrimmedAndBadLinesAreRejected() throws IOException {
+        File source = write("epc,name\r\n"
+                + "  E28011600000000000000001,pallet\r\n"
+                + "\tE28011600000000000000002\n"
+                + "\n"
+                + "   \n"
+                + "e28011600000000000000003;box\n"
+                + "E28011600000000000000001\n"
+                + "  not an epc\n"
+                + "E28011600000000000000004");
+        ExpectedManifest manifest = ExpectedManifest.load(source, new File(folder.getRoot(), "manifest.bin"));
+
+        assertEquals(4, manifest.getExpectedCount());
+        assertTrue(manifest.describe(), manifest.describe().contains("(1 duplicate, 2 rejected lines)"));
+        assertEquals(ExpectedManifest.Match.FOUND, manifest.reconcile("E28011600000000000000001"));
+        assertEquals(ExpectedManifest.Match.FOUND, manifest.reconcile("E28011600000000000000002"));
+        assertEquals(ExpectedManifest.Match.FOUND, manifest.reconcile("E28011600000000000000003"));
+        assertEquals(ExpectedManifest.Match.FOUND, manifest.reconcile("E28011600000000000000004"));
+        assertEquals(ExpectedManifest.Match.UNEXPECTED, manifest.reconcile("E28011600000000000000005"));
+    }
+
+    @Test
+    public void everyEpcOfALargeManifestIsFound() throws IOException {
+        int count = 200_000;
+        StringBuilder text = new StringBuilder(count * 26);
+        for (int i = 0; i < count; i++) {
+            text.append(String.format(Locale.US, "E28011%018X\n", (long) i * 0x9E3779B1L));
+        }
+        File cache = new File(folder.getRoot(), "manifest.bin");
+        ExpectedManifest manifest = ExpectedManifest.load(write(text.toString()), cache);
+        assertEquals(count, manifest.getExpectedCount());
+        for (int i = 0; i < count; i++) {
+            assertEquals(ExpectedManifest.Match.FOUND, manifest.reconcile(String.format(Locale.US, "E28011%018X", (long) i * 0x9E3779B1L)));
+        }
+        assertEquals(0, manifest.getMissingCount());
+        assertEquals(ExpectedManifest.Match.UNEXPECTED, manifest.reconcile("E28011000000000000000001"));
+    }
+}
@@ -0,0 +1,179 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.sun.net.httpserver.HttpServer;
+import com.zebra.rfid.api3.TagData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InventoryUploaderTest {
+    private static final long WAIT_MS = 10000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Status and Retry-After of the next responses; 200 once empty. */
+    private final ConcurrentLinkedQueue<String[]> responses = new ConcurrentLinkedQueue<>();
+    private final LinkedBlockingQueue<String> requests = new LinkedBlockingQueue<>();
+    private final List<Long> requestTimesMs = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer server;
+    private URL endpoint;
+    private File spoolDir;
+    private int nextTag;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/inventory", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                while (in.read() != -1) {
+                    // request body is not inspected
+                }
+            }
+            requestTimesMs.add(System.currentTimeMillis());
+            requests.add(exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+            String[] response = responses.poll();
+            int status = response != null ? Integer.parseInt(response[0]) : 200;
+            if (response != null && response[1] != null) exchange.getResponseHeaders().add("Retry-After", response[1]);
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        endpoint = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/inventory");
+        spoolDir = folder.newFolder("spool");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Offers a full batch of new tags, which is sealed right away.
+     */
+    private void offerBatch(InventoryUploader uploader) {
+        TagData[] batch = new TagData[InventoryUploader.MAX_BATCH_TAGS];
+        for (int i = 0; i < batch.length; i++) {
+            TagData tag = new TagData();
+            tag.setTagID(String.format(Locale.US, "E2801160%016X", nextTag++));
+            tag.setPeakRSSI((short) -50);
+            tag.setAntennaID((short) 1);
+            batch[i] = tag;
+        }
+        uploader.offer(batch);
+    }
+
+    private long sequenceOf(String idempotencyKey) {
+        return Long.parseLong(idempotencyKey.substring(idempotencyKey.lastIndexOf('-') + 1));
+    }
+
+    private void awaitSpoolEmpty() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            File[] spooled = spoolDir.listFiles((dir, name) -> name.endsWith(".jsonl.gz"));
+            if (spooled == null || spooled.length == 0) return;
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Spooled batches not acknowledged");
+    }
+
+    @Test
+    public void serverErrorIsRetriedAndAckedBatchIsNotResent() throws Exception {
+        responses.add(new String[]{"503", null});
+        InventoryUploader uploader = new InventoryUploader(endpoint, spoolDir, 2);
+        uploader.start();
+        offerBatch(uploader);
+
+        String first = requests.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+        String retry = requests.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(first);
+        assertEquals(first, retry);
+        assertEquals(1, sequenceOf(first));
+        awaitSpoolEmpty();
+        uploader.stop();
+
+        InventoryUploader restarted = new InventoryUploader(endpoint, spoolDir, 2);
+        restarted.start();
+        offerBatch(restarted);
+        String next = requests.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(next);
+        assertEquals(2, sequenceOf(next));
+        awaitSpoolEmpty();
+        restarted.stop();
+        assertNull(requests.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void retryWaitsForRetryAfter() throws Exception {
+        responses.add(new String[]{"429", "1"});
+        InventoryUploader uploader = new InventoryUploader(endpoint, spoolDir, 1);
+        uploader.start();
+        offerBatch(uploader);
+
+        assertNotNull(requests.poll(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertNotNull(requests.poll(WAIT_MS, TimeUnit.MILLISECONDS));
+        uploader.stop();
+        // Without Retry-After the first retry comes after at most 500 ms.
+        assertTrue(requestTimesMs.get(1) - requestTimesMs.get(0) >= 900);
+    }
+
+    @Test
+    public void unreadableSequenceResumesAfterSpooledBatches() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(new File(spoolDir, "next_sequence"))) {
+            out.write("\u0000\u0000".getBytes(StandardCharsets.UTF_8));
+        }
+        try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(new File(spoolDir, "000000000007_1_1.jsonl.gz")))) {
+            out.write("{}\n".getBytes(StandardCharsets.UTF_8));
+        }
+        InventoryUploader uploader = new InventoryUploader(endpoint, spoolDir, 1);
+        uploader.start();
+        String spooled = requests.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(spooled);
+        assertEquals(7, sequenceOf(spooled));
+        awaitSpoolEmpty();
+
+        offerBatch(uploader);
+        String next = requests.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(next);
+        assertEquals(8, sequenceOf(next));
+        uploader.stop();
+    }
+
+    @Test
+    public void temporaryFilesLeftByACrashAreDeleted() throws Exception {
+        File batch = new File(spoolDir, "000000000003_1_1.jsonl.gz.tmp");
+        File sequence = new File(spoolDir, "next_sequence.tmp");
+        assertTrue(batch.createNewFile());
+        assertTrue(sequence.createNewFile());
+        InventoryUploader uploader = new InventoryUploader(endpoint, spoolDir, 1);
+        uploader.start();
+        uploader.stop();
+
+        assertTrue(!batch.exists() && !sequence.exists());
+        assertNull(requests.poll(200, TimeUnit.MILLISECONDS));
+    }
+}
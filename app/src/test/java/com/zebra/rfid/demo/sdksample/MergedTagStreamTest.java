@@ -0,0 +1,79 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MergedTagStreamTest {
+    private static final long WINDOW_MS = 60000;
+
+    private final List<String> passed = Collections.synchronizedList(new ArrayList<>());
+    private final EpcFilter filter = EpcFilter.compile("E280");
+    private MergedTagStream stream;
+    private MergedTagStream.Source primary;
+    private MergedTagStream.Source dock;
+
+    @Before
+    public void setUp() {
+        stream = new MergedTagStream(batch -> {
+            for (TagData tag : batch) {
+                passed.add(tag.getTagID());
+            }
+            return true;
+        }, filter::apply, WINDOW_MS);
+        primary = stream.register("primary");
+        dock = stream.register("dock");
+    }
+
+    private static TagData[] tags(String... epcs) {
+        TagData[] batch = new TagData[epcs.length];
+        for (int i = 0; i < epcs.length; i++) {
+            batch[i] = new TagData();
+            batch[i].setTagID(epcs[i]);
+        }
+        return batch;
+    }
+
+    @Test
+    public void singleReaderSessionBypassesTheMerge() {
+        primary.offer(tags("E2801160000000000000000A", "E2801160000000000000000A", "300000000000000000000001"));
+        dock.offer(tags("E2801160000000000000000A"));
+
+        assertEquals(3, passed.size());
+        assertTrue(stream.describe(), stream.describe().contains("merging off): 0 unique tags"));
+    }
+
+    @Test
+    public void crossReaderDuplicatesAreDroppedWhileMerging() {
+        stream.setMerging(true);
+        primary.offer(tags("E2801160000000000000000A", "E2801160000000000000000B"));
+        primary.offer(tags("E2801160000000000000000A"));
+        dock.offer(tags("E2801160000000000000000A", "E2801160000000000000000C"));
+
+        assertEquals(4, passed.size());
+        assertEquals("E2801160000000000000000C", passed.get(3));
+        String describe = stream.describe();
+        assertTrue(describe, describe.contains("3 unique tags"));
+        assertTrue(describe, describe.contains("dock: 2 reads, 1 cross-reader duplicates dropped, 1 tags seen first"));
+    }
+
+    @Test
+    public void filteredReadsNeverReachTheDedupState() {
+        stream.setMerging(true);
+        primary.offer(tags("300000000000000000000001", "300000000000000000000002"));
+        dock.offer(tags("300000000000000000000001", "E2801160000000000000000A"));
+
+        assertEquals(Collections.singletonList("E2801160000000000000000A"), passed);
+        String describe = stream.describe();
+        assertTrue(describe, describe.contains("1 unique tags"));
+        assertTrue(describe, describe.contains("primary: 2 reads, 0 cross-reader duplicates dropped, 0 tags seen first"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.zebra.rfid.demo.sdksample;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReaderStateMonitorTest {
+    private final List<String> ran = new ArrayList<>();
+    private final ReaderStateMonitor monitor = new ReaderStateMonitor(Runnable::run);
+
+    @Test
+    public void idleReaderRunsRequestsImmediately() {
+        monitor.runWhenIdle(() -> ran.add("trigger"));
+        assertEquals(1, ran.size());
+    }
+
+    @Test
+    public void busyReaderQueuesRequestsUntilIdle() {
+        monitor.markBusy();
+        monitor.runWhenIdle(() -> ran.add("trigger"));
+        monitor.runWhenIdle(() -> ran.add("keylayout"));
+        assertTrue(ran.isEmpty());
+        monitor.markIdle();
+        assertEquals(2, ran.size());
+        assertEquals("trigger", ran.get(0));
+    }
+
+    @Test
+    public void resetDropsQueuedRequests() {
+        monitor.markBusy();
+        monitor.runWhenIdle(() -> ran.add("stale trigger"));
+        monitor.reset();
+        assertFalse(monitor.isBusy());
+        assertEquals(0, monitor.pendingCount());
+        // The reconnect marks the reader idle; the stale request must not run then.
+        monitor.markIdle();
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void resetWakesWaiters() throws InterruptedException {
+        monitor.markBusy();
+        Thread waiter = new Thread(monitor::reset);
+        waiter.start();
+        assertTrue(monitor.awaitIdle(5000));
+        waiter.join();
+    }
+}
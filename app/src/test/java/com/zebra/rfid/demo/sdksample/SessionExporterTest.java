@@ -0,0 +1,117 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SessionExporterTest {
+    private static final int LARGE_SESSION = 500_000;
+
+    private final Object lock = new Object();
+    private final EpcSet tags = new EpcSet(1024);
+    private final TagStatsTable stats = new TagStatsTable(1024);
+    private final SessionExporter exporter = new SessionExporter(tags, stats, lock);
+
+    private static String epc(int i) {
+        return String.format(Locale.US, "E2801160%016X", i);
+    }
+
+    private void fill(int count) {
+        for (int i = 0; i < count; i++) {
+            int ordinal = tags.add(epc(i));
+            stats.record(ordinal, (short) (-40 - i % 30), (short) (1 + i % 4), 1000L + i);
+            stats.record(ordinal, (short) -70, (short) 1, 2000L + i);
+        }
+    }
+
+    private static String[] lines(String text) {
+        assertTrue(text.endsWith("\n"));
+        return text.substring(0, text.length() - 1).split("\n", -1);
+    }
+
+    @Test
+    public void csvQuotesFieldsThatNeedIt() throws IOException {
+        stats.record(tags.add("E280,1160"), (short) -50, (short) 2, 1000);
+        tags.add("say \"hi\"");
+        tags.add("E2801160000000000000000A");
+        StringWriter out = new StringWriter();
+
+        assertEquals(3, exporter.export(out, SessionExporter.Format.CSV));
+        String[] lines = lines(out.toString());
+        assertEquals(4, lines.length);
+        assertEquals("epc,reads,rssi_min,rssi_max,rssi_ema,first_seen_ms,last_seen_ms,antenna", lines[0]);
+        assertEquals("\"E280,1160\",1,-50,-50,-50.0,1000,1000,2", lines[1]);
+        assertEquals("\"say \"\"hi\"\"\",0,,,,,,", lines[2]);
+        assertEquals("E2801160000000000000000A,0,,,,,,", lines[3]);
+    }
+
+    @Test
+    public void jsonLinesHasOneObjectPerLine() throws IOException {
+        fill(10_000);
+        StringWriter out = new StringWriter();
+
+        assertEquals(10_000, exporter.export(out, SessionExporter.Format.JSON_LINES));
+        String[] lines = lines(out.toString());
+        assertEquals(10_000, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i], lines[i].startsWith("{") && lines[i].endsWith("}"));
+            JsonObject row = JsonParser.parseString(lines[i]).getAsJsonObject();
+            assertEquals(epc(i), row.get("epc").getAsString());
+            assertEquals(2, row.get("reads").getAsInt());
+            assertEquals(-70, row.get("rssi_min").getAsInt());
+            assertEquals(1000L + i, row.get("first_seen_ms").getAsLong());
+            assertEquals(2000L + i, row.get("last_seen_ms").getAsLong());
+        }
+    }
+
+    @Test
+    public void exportStopsWhenTheSessionIsCleared() throws IOException {
+        fill(20_000);
+        StringWriter out = new StringWriter();
+        // Clears the session once the first chunk has been written.
+        Writer clearing = new FilterWriter(out) {
+            private int newlines;
+
+            @Override
+            public void write(int c) throws IOException {
+                super.write(c);
+                if (c == '\n' && ++newlines == 100) {
+                    synchronized (lock) {
+                        tags.clear();
+                        stats.clear();
+                    }
+                }
+            }
+        };
+
+        int written = exporter.export(clearing, SessionExporter.Format.JSON_LINES);
+        assertTrue("wrote " + written, written > 0 && written < 20_000);
+        assertEquals(written, lines(out.toString()).length);
+    }
+
+    @Test
+    public void largeSessionExportsInSeconds() throws IOException {
+        fill(LARGE_SESSION);
+        for (SessionExporter.Format format : SessionExporter.Format.values()) {
+            StringWriter out = new StringWriter(64 * LARGE_SESSION);
+            long start = System.nanoTime();
+            int written = exporter.export(out, format);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(LARGE_SESSION, written);
+            int rows = lines(out.toString()).length - (format == SessionExporter.Format.CSV ? 1 : 0);
+            assertEquals(LARGE_SESSION, rows);
+            assertTrue(format + " export took " + elapsedMs + " ms", elapsedMs < 5000);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SessionJournalTest {
+    private static final int READS = 150_000;
+    private static final int BATCH = 64;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private final List<TagData> replayed = new ArrayList<>();
+    private final List<Long> replayedTimes = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "session.journal");
+    }
+
+    private static TagData read(int i) {
+        TagData tag = new TagData();
+        tag.setTagID(String.format(Locale.US, "E2801160%016X", i));
+        tag.setPeakRSSI((short) (-30 - i % 60));
+        tag.setAntennaID((short) (1 + i % 4));
+        return tag;
+    }
+
+    private static void appendReads(SessionJournal journal, int from, int to) {
+        for (int start = from; start < to; start += BATCH) {
+            TagData[] batch = new TagData[Math.min(BATCH, to - start)];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = read(start + i);
+            }
+            journal.append(batch);
+        }
+    }
+
+    private SessionJournal reopenAndReplay() throws IOException {
+        SessionJournal journal = new SessionJournal(file);
+        journal.open();
+        journal.replay((batch, timestampsMs) -> {
+            for (int i = 0; i < batch.length; i++) {
+                replayed.add(batch[i]);
+                replayedTimes.add(timestampsMs[i]);
+            }
+        });
+        return journal;
+    }
+
+    @Test
+    public void interruptedSessionOf150kReadsReplaysIntactWithTimestamps() throws IOException {
+        SessionJournal journal = new SessionJournal(file);
+        journal.open();
+        long before = System.currentTimeMillis();
+        appendReads(journal, 0, READS);
+        long after = System.currentTimeMillis();
+        journal.sync();
+        // No close: the process is killed with the session still active.
+
+        SessionJournal recovered = reopenAndReplay();
+        assertEquals(READS, replayed.size());
+        for (int i = 0; i < READS; i += 997) {
+            TagData expected = read(i);
+            assertEquals(expected.getTagID(), replayed.get(i).getTagID());
+            assertEquals(expected.getPeakRSSI(), replayed.get(i).getPeakRSSI());
+            assertEquals(expected.getAntennaID(), replayed.get(i).getAntennaID());
+            long time = replayedTimes.get(i);
+            assertTrue(time >= before && time <= after);
+        }
+        assertTrue(file.length() > 4L << 20);
+        assertTrue(recovered.describe().startsWith("journal: " + READS + " reads (" + READS + " recovered, 0 after last sync)"));
+        recovered.close(true);
+    }
+
+    @Test
+    public void readsAfterTheLastSyncAreRecoveredAndCounted() throws IOException {
+        SessionJournal journal = new SessionJournal(file);
+        journal.open();
+        appendReads(journal, 0, 1000);
+        journal.sync();
+        appendReads(journal, 1000, 1500);
+
+        SessionJournal recovered = reopenAndReplay();
+        assertEquals(1500, replayed.size());
+        assertTrue(recovered.describe().contains("(1500 recovered, 500 after last sync)"));
+        recovered.close(true);
+    }
+
+    @Test
+    public void sessionEndedNormallyIsNotReplayed() throws IOException {
+        SessionJournal journal = new SessionJournal(file);
+        journal.open();
+        appendReads(journal, 0, 1000);
+        journal.close(true);
+
+        SessionJournal next = reopenAndReplay();
+        assertTrue(replayed.isEmpty());
+        appendReads(next, 0, 10);
+        next.close(false);
+
+        reopenAndReplay().close(true);
+        assertEquals(10, replayed.size());
+    }
+
+    @Test
+    public void readsBeforeOpenAreKept() throws IOException {
+        SessionJournal journal = new SessionJournal(file);
+        appendReads(journal, 0, 200);
+        journal.open();
+        appendReads(journal, 200, 300);
+        journal.close(false);
+
+        reopenAndReplay().close(true);
+        assertEquals(300, replayed.size());
+        assertEquals(read(0).getTagID(), replayed.get(0).getTagID());
+        assertEquals(read(299).getTagID(), replayed.get(299).getTagID());
+    }
+
+    @Test
+    public void resetLeavesOnlyTheNewSession() throws IOException {
+        SessionJournal journal = new SessionJournal(file);
+        journal.open();
+        appendReads(journal, 0, 5000);
+        journal.reset();
+        appendReads(journal, 5000, 5100);
+        journal.close(false);
+
+        reopenAndReplay().close(true);
+        assertEquals(100, replayed.size());
+        assertEquals(read(5000).getTagID(), replayed.get(0).getTagID());
+    }
+}
@@ -0,0 +1,127 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TagBatchQueueTest {
+    private TagBatchQueue queue;
+
+    @After
+    public void tearDown() {
+        if (queue != null) queue.stop();
+    }
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        queue = new TagBatchQueue(5, TagBatchQueue.WaitStrategy.PARK);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(new TagData[0]));
+        }
+        assertFalse(queue.offer(new TagData[0]));
+    }
+
+    @Test
+    public void fullRingDropsAndCountsWithoutBlocking() {
+        queue = new TagBatchQueue(4, TagBatchQueue.WaitStrategy.PARK);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(new TagData[0]));
+        }
+        assertFalse(queue.offer(new TagData[0]));
+        assertFalse(queue.offer(new TagData[0]));
+        assertEquals(4, queue.depth());
+        assertEquals(4, queue.maxDepth());
+        assertEquals(6, queue.offeredCount());
+        assertEquals(2, queue.droppedCount());
+    }
+
+    @Test
+    public void fullRingAcceptsAgainOnceDrained() throws InterruptedException {
+        queue = new TagBatchQueue(4, TagBatchQueue.WaitStrategy.PARK);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(new TagData[0]);
+        }
+        assertFalse(queue.offer(new TagData[0]));
+        CountDownLatch drained = new CountDownLatch(4);
+        queue.start(batch -> drained.countDown());
+        assertTrue(drained.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.offer(new TagData[0]));
+    }
+
+    @Test
+    public void deliversInOrderAcrossManyWraparounds() throws InterruptedException {
+        queue = new TagBatchQueue(8, TagBatchQueue.WaitStrategy.YIELD);
+        int batches = 10_000;
+        List<TagData[]> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(batches);
+        queue.start(batch -> {
+            received.add(batch);
+            done.countDown();
+        });
+        TagData[][] sent = new TagData[batches][];
+        for (int i = 0; i < batches; i++) {
+            sent[i] = new TagData[]{new TagData()};
+            while (!queue.offer(sent[i])) {
+                Thread.yield();
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < batches; i++) {
+            assertSame(sent[i], received.get(i));
+        }
+        assertEquals(0, queue.depth());
+    }
+
+    @Test
+    public void concurrentProducersLoseNothingButDrops() throws InterruptedException {
+        queue = new TagBatchQueue(64, TagBatchQueue.WaitStrategy.PARK);
+        int producers = 4;
+        int perProducer = 20_000;
+        boolean[] seen = new boolean[producers * perProducer];
+        int[] delivered = new int[1];
+        queue.start(batch -> {
+            int id = Integer.parseInt(batch[0].getTagID());
+            synchronized (seen) {
+                assertFalse("delivered twice: " + id, seen[id]);
+                seen[id] = true;
+                delivered[0]++;
+            }
+        });
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    TagData tag = new TagData();
+                    tag.setTagID(Integer.toString(base + i));
+                    queue.offer(new TagData[]{tag});
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (queue.depth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(20);
+        assertEquals(producers * perProducer, queue.offeredCount());
+        synchronized (seen) {
+            assertEquals(queue.offeredCount() - queue.droppedCount(), delivered[0]);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.zebra.rfid.demo.sdksample;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TagRowStoreTest {
+    private static final int HOT_ROWS = 16;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private TagRowStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(folder.getRoot(), "rows.bin");
+        store = new TagRowStore(file, HOT_ROWS, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    public void hotRowsAreServedFromMemory() {
+        for (int i = 0; i < HOT_ROWS; i++) {
+            store.append("EPC" + i);
+        }
+        assertEquals(HOT_ROWS, store.size());
+        assertEquals("EPC0", store.get(0));
+        assertEquals("EPC15", store.get(15));
+    }
+
+    @Test
+    public void coldRowsAreLoadedInTheBackgroundAndReported() throws InterruptedException {
+        int rows = TagRowStore.BLOCK_ROWS * 3;
+        for (int i = 0; i < rows; i++) {
+            store.append(String.format("%024X (RSSI: -%d)", i, i % 90));
+        }
+        CountDownLatch loaded = new CountDownLatch(1);
+        int[] range = new int[2];
+        store.setListener((first, count) -> {
+            range[0] = first;
+            range[1] = count;
+            loaded.countDown();
+        });
+        int index = TagRowStore.BLOCK_ROWS + 5;
+        assertEquals(TagRowStore.LOADING, store.get(index));
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        assertEquals(TagRowStore.BLOCK_ROWS, range[0]);
+        assertEquals(TagRowStore.BLOCK_ROWS, range[1]);
+        assertEquals(String.format("%024X (RSSI: -%d)", index, index % 90), store.get(index));
+        assertEquals((long) rows * TagRowStore.RECORD_BYTES, file.length());
+    }
+
+    @Test
+    public void longAndNonAsciiRowsAreTruncatedOnDisk() throws InterruptedException {
+        StringBuilder longRow = new StringBuilder("\u00E9");
+        while (longRow.length() < 100) longRow.append('A');
+        store.append(longRow.toString());
+        for (int i = 0; i < HOT_ROWS; i++) {
+            store.append("hot" + i);
+        }
+        CountDownLatch loaded = new CountDownLatch(1);
+        store.setListener((first, count) -> loaded.countDown());
+        store.get(0);
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        String row = store.get(0);
+        assertEquals(TagRowStore.RECORD_BYTES - 1, row.length());
+        assertEquals('?', row.charAt(0));
+    }
+
+    @Test
+    public void clearStartsANewSessionAndDropsCachedBlocks() throws InterruptedException {
+        for (int i = 0; i < TagRowStore.BLOCK_ROWS + HOT_ROWS; i++) {
+            store.append("old" + i);
+        }
+        CountDownLatch first = new CountDownLatch(1);
+        store.setListener((f, c) -> first.countDown());
+        store.get(0);
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        assertEquals("old0", store.get(0));
+
+        store.clear();
+        assertEquals(0, store.size());
+        for (int i = 0; i < TagRowStore.BLOCK_ROWS + HOT_ROWS; i++) {
+            store.append("new" + i);
+        }
+        CountDownLatch second = new CountDownLatch(1);
+        store.setListener((f, c) -> second.countDown());
+        assertEquals(TagRowStore.LOADING, store.get(0));
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+        assertEquals("new0", store.get(0));
+    }
+
+    @Test
+    public void closeDeletesTheFile() throws InterruptedException {
+        for (int i = 0; i < HOT_ROWS * 2; i++) {
+            store.append("row" + i);
+        }
+        store.close();
+        for (int i = 0; i < 50 && file.exists(); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(file.exists());
+    }
+}
@@ -0,0 +1,66 @@
+package com.zebra.rfid.demo.sdksample;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Cost of clearing a session (the clear button and each new trigger pull) with the set full.
+ * Every iteration refills the sets in setup and times a single clear.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+public class SessionClearBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int population;
+
+    private TagPopulation tags;
+    private EpcSet epcSet;
+    private TagStatsTable stats;
+    private HashSet<String> hashSet;
+
+    @Setup(Level.Trial)
+    public void createPopulation() {
+        tags = new TagPopulation(population, 42);
+        epcSet = new EpcSet(population);
+        stats = new TagStatsTable(population);
+        hashSet = new HashSet<>();
+    }
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        for (int i = 0; i < tags.epcs.length; i++) {
+            epcSet.add(tags.epcs[i]);
+            stats.record(i, (short) -50, (short) 1, i);
+            hashSet.add(tags.epcs[i]);
+        }
+    }
+
+    @Benchmark
+    public int epcSetWithStats() {
+        epcSet.clear();
+        stats.clear();
+        return epcSet.size();
+    }
+
+    @Benchmark
+    public int hashSetBaseline() {
+        hashSet.clear();
+        return hashSet.size();
+    }
+}
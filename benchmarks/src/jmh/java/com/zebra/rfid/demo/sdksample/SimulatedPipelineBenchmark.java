@@ -0,0 +1,108 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The simulated reader driving the tag pipeline end to end: {@link SimulatedReaderPort} generating
+ * reads on its own thread, handed through {@link TagBatchQueue} to a consumer that dedups them
+ * into {@link EpcSet} and {@link TagStatsTable} the way the activity does. The simulator is set
+ * to a rate no pipeline reaches, so the score is the cost per read of the slowest stage. A full
+ * ring holds the generator back instead of dropping the batch, so every read is counted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SimulatedPipelineBenchmark {
+    private static final int READS = 1 << 19;
+
+    @Param({"1000", "100000"})
+    public int population;
+
+    private final AtomicLong consumed = new AtomicLong();
+    private SimulatedReaderPort port;
+    private TagBatchQueue queue;
+    private EpcSet epcSet;
+    private TagStatsTable stats;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        SimulatedReaderPort.Config config = new SimulatedReaderPort.Config();
+        config.population = population;
+        config.readsPerSecond = 50_000_000;
+        config.antennaCount = 4;
+        epcSet = new EpcSet(1024);
+        stats = new TagStatsTable(1024);
+        consumed.set(0);
+        queue = new TagBatchQueue(256, TagBatchQueue.WaitStrategy.PARK);
+        queue.start(this::dedup);
+        port = new SimulatedReaderPort("SIM-BENCH", config);
+        port.setListener(new ReaderPort.Listener() {
+            @Override
+            public void onTags(TagData[] batch) {
+                while (!queue.offer(batch)) {
+                    Thread.yield();
+                }
+            }
+
+            @Override
+            public void onTrigger(boolean pressed) {
+            }
+
+            @Override
+            public void onInventoryStarted() {
+            }
+
+            @Override
+            public void onInventoryStopped() {
+            }
+
+            @Override
+            public void onDisconnected() {
+            }
+        });
+        port.connect();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        port.disconnect();
+        queue.stop();
+    }
+
+    private void dedup(TagData[] batch) {
+        long now = System.currentTimeMillis();
+        for (TagData tag : batch) {
+            int ordinal = epcSet.add(tag.getTagID());
+            if (ordinal < 0) ordinal = -ordinal - 1;
+            stats.record(ordinal, tag.getPeakRSSI(), tag.getAntennaID(), now);
+        }
+        consumed.addAndGet(batch.length);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public int simulatedInventory() {
+        port.startInventory();
+        while (consumed.get() < READS) {
+            Thread.yield();
+        }
+        port.stopInventory();
+        return epcSet.size();
+    }
+}
@@ -0,0 +1,138 @@
+package com.zebra.rfid.demo.sdksample;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Per-read cost of the dedup step in {@code MainActivity.collectNewTags}: the {@link EpcSet} plus
+ * {@link TagStatsTable} path against the {@code HashSet<String>} it replaced, and the row
+ * formatting done for each first sighting. For the read stream both sets are pre-filled with the
+ * whole population, so it measures the steady state where almost every read is a repeat; the
+ * fill benchmarks measure the insert path of a session seeing every tag for the first time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TagDedupBenchmark {
+    private static final int BATCH = 64;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int population;
+
+    private TagPopulation tags;
+    private EpcSet epcSet;
+    private TagStatsTable stats;
+    private HashSet<String> hashSet;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tags = new TagPopulation(population, 42);
+        epcSet = new EpcSet(population);
+        stats = new TagStatsTable(population);
+        hashSet = new HashSet<>();
+        for (String epc : tags.epcs) {
+            epcSet.add(epc);
+            hashSet.add(epc);
+        }
+    }
+
+    private int nextBatchStart() {
+        int start = cursor;
+        cursor = (cursor + BATCH) & (TagPopulation.STREAM_LENGTH - 1);
+        return start;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int epcSetWithStats() {
+        int start = nextBatchStart();
+        int added = 0;
+        for (int i = start; i < start + BATCH; i++) {
+            int ordinal = epcSet.add(tags.readIds[i]);
+            if (ordinal >= 0) {
+                added++;
+            } else {
+                ordinal = -ordinal - 1;
+            }
+            stats.record(ordinal, tags.readRssi[i], (short) 1, i);
+        }
+        return added;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int hashSetBaseline() {
+        int start = nextBatchStart();
+        int added = 0;
+        for (int i = start; i < start + BATCH; i++) {
+            if (hashSet.add(tags.readIds[i])) added++;
+        }
+        return added;
+    }
+
+    /**
+     * Every tag of the population seen for the first time, starting from the activity's initial
+     * capacity, so growth is included. Score is time per session fill.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int epcSetFill() {
+        EpcSet set = new EpcSet(1024);
+        TagStatsTable table = new TagStatsTable(1024);
+        String[] epcs = tags.epcs;
+        for (int i = 0; i < epcs.length; i++) {
+            table.record(set.add(epcs[i]), (short) -55, (short) 1, i);
+        }
+        return set.size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int hashSetFill() {
+        HashSet<String> set = new HashSet<>();
+        for (String epc : tags.epcs) {
+            set.add(epc);
+        }
+        return set.size();
+    }
+
+    /**
+     * Row text built for a newly seen tag, as handed to the list adapter.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void formatRows(Blackhole blackhole) {
+        int start = nextBatchStart();
+        ArrayList<String> rows = new ArrayList<>(BATCH);
+        for (int i = start; i < start + BATCH; i++) {
+            rows.add(TagRows.format(tags.readIds[i], tags.readRssi[i]));
+        }
+        blackhole.consume(rows);
+    }
+
+    /**
+     * Status line rebuild done once per frame in {@code updateStatusTextWithUniqueTags}.
+     */
+    @Benchmark
+    public String statusRebuild() {
+        String statusStr = "Connected: RFD4031-G10B700-US\nUnique Tags: " + (population - 1);
+        return TagRows.withTagStatus(statusStr, String.format("Unique Tags: %1$d", population));
+    }
+}
@@ -0,0 +1,119 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Hand-off of tag batches from the read callback thread to the consumer: {@link TagBatchQueue}
+ * against the single-thread executor it replaced. Each invocation publishes a run of batches and
+ * waits until the consumer has seen all of them, so the score is end-to-end batches per second.
+ * Each side has its own state, so the executor baseline never runs next to a queue consumer
+ * spinning or yielding for work.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TagHandoffBenchmark {
+    private static final int RUN = 256;
+    private static final int BATCH = 64;
+    private static final int POPULATION = 10000;
+
+    /**
+     * A run of batches and the count of tags the consumer has seen.
+     */
+    @State(Scope.Thread)
+    public static class Batches {
+        final AtomicLong consumed = new AtomicLong();
+        TagData[][] batches;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            TagPopulation tags = new TagPopulation(POPULATION, 7);
+            batches = new TagData[RUN][BATCH];
+            for (int b = 0; b < RUN; b++) {
+                System.arraycopy(tags.reads, b * BATCH, batches[b], 0, BATCH);
+            }
+        }
+
+        long awaitConsumed(long target) {
+            long seen;
+            while ((seen = consumed.get()) < target) {
+                Thread.yield();
+            }
+            return seen;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class QueueState extends Batches {
+        @Param({"PARK", "YIELD", "SPIN"})
+        public String waitStrategy;
+
+        TagBatchQueue queue;
+
+        @Setup(Level.Trial)
+        public void startQueue() {
+            queue = new TagBatchQueue(RUN, TagBatchQueue.WaitStrategy.valueOf(waitStrategy));
+            queue.start(batch -> consumed.addAndGet(batch.length));
+        }
+
+        @TearDown(Level.Trial)
+        public void stopQueue() {
+            queue.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ExecutorState extends Batches {
+        ExecutorService executor;
+
+        @Setup(Level.Trial)
+        public void startExecutor() {
+            executor = Executors.newSingleThreadExecutor();
+        }
+
+        @TearDown(Level.Trial)
+        public void stopExecutor() {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RUN)
+    public long tagBatchQueue(QueueState state) {
+        long target = state.consumed.get() + (long) RUN * BATCH;
+        for (TagData[] batch : state.batches) {
+            while (!state.queue.offer(batch)) {
+                Thread.yield();
+            }
+        }
+        return state.awaitConsumed(target);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RUN)
+    public long executorBaseline(ExecutorState state) {
+        AtomicLong consumed = state.consumed;
+        long target = consumed.get() + (long) RUN * BATCH;
+        for (TagData[] batch : state.batches) {
+            state.executor.execute(() -> consumed.addAndGet(batch.length));
+        }
+        return state.awaitConsumed(target);
+    }
+}
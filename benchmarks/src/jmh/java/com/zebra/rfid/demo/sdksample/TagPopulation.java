@@ -0,0 +1,47 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import java.util.Locale;
+import java.util.Random;
+
+
+/**
+ * Synthetic EPC population and a pre-generated read stream drawn from it, shared by the
+ * benchmarks so that generating input never shows up in the measurements.
+ */
+final class TagPopulation {
+    /** Reads in the pre-generated stream; a power of two so the cursor can wrap with a mask. */
+    static final int STREAM_LENGTH = 1 << 16;
+
+    final String[] epcs;
+    final String[] readIds;
+    final short[] readRssi;
+    final TagData[] reads;
+
+    /**
+     * @param size Number of distinct tags.
+     * @param seed Random seed, so every fork sees the same stream.
+     */
+    TagPopulation(int size, long seed) {
+        Random random = new Random(seed);
+        epcs = new String[size];
+        long prefix = random.nextLong();
+        for (int i = 0; i < size; i++) {
+            epcs[i] = String.format(Locale.US, "%016X%08X", prefix, i);
+        }
+        readIds = new String[STREAM_LENGTH];
+        readRssi = new short[STREAM_LENGTH];
+        reads = new TagData[STREAM_LENGTH];
+        for (int i = 0; i < STREAM_LENGTH; i++) {
+            // Fresh String instances, as the SDK hands out, so hashes are not already cached.
+            readIds[i] = new String(epcs[random.nextInt(size)].toCharArray());
+            readRssi[i] = (short) (-55 + random.nextGaussian() * 8);
+            TagData tag = new TagData();
+            tag.setTagID(readIds[i]);
+            tag.setPeakRSSI(readRssi[i]);
+            tag.setAntennaID((short) 1);
+            reads[i] = tag;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package android.util;
+
+/**
+ * JVM stand-in for the Android logger so pipeline classes compile outside the app. Errors and
+ * warnings go to stderr; lower levels are dropped to keep them out of the measurements.
+ */
+public final class Log {
+    private Log() {
+    }
+
+    public static int d(String tag, String msg) {
+        return 0;
+    }
+
+    public static int v(String tag, String msg) {
+        return 0;
+    }
+
+    public static int w(String tag, String msg) {
+        System.err.println("W/" + tag + ": " + msg);
+        return 0;
+    }
+
+    public static int w(String tag, String msg, Throwable tr) {
+        System.err.println("W/" + tag + ": " + msg + " " + tr);
+        return 0;
+    }
+
+    public static int e(String tag, String msg) {
+        System.err.println("E/" + tag + ": " + msg);
+        return 0;
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        System.err.println("E/" + tag + ": " + msg + " " + tr);
+        return 0;
+    }
+}